@@ -16,15 +16,22 @@
 
 package org.springframework.cloud.deployer.spi.kubernetes;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import io.fabric8.kubernetes.api.model.Affinity;
 import io.fabric8.kubernetes.api.model.Container;
 import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.EnvVar;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodList;
 import io.fabric8.kubernetes.api.model.PodSecurityContext;
@@ -35,6 +42,9 @@ import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.Service;
 import io.fabric8.kubernetes.api.model.ServiceList;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.LogWatch;
+import io.fabric8.kubernetes.client.dsl.Loggable;
+import io.fabric8.kubernetes.client.dsl.TimestampBytesLimitTerminateTimeTailPrettyLoggable;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -72,6 +82,8 @@ public class AbstractKubernetesDeployer {
 
 	private static final String SERVER_PORT_KEY = "server.port";
 
+	private static final int LOG_TAIL_LINES = 500;
+
 	protected final Log logger = LogFactory.getLog(getClass().getName());
 
 	protected ContainerFactory containerFactory;
@@ -82,6 +94,8 @@ public class AbstractKubernetesDeployer {
 
 	protected DeploymentPropertiesResolver deploymentPropertiesResolver;
 
+	private volatile RunningPhaseDeploymentStateResolver runningPhaseDeploymentStateResolver;
+
 	/**
 	 * Create the RuntimeEnvironmentInfo.
 	 *
@@ -133,34 +147,115 @@ public class AbstractKubernetesDeployer {
 		AppStatus.Builder statusBuilder = AppStatus.of(id);
 		Service service = null;
 		if (podList != null && podList.getItems() != null) {
+			ServicePrefixIndex<Service> serviceIndex = new ServicePrefixIndex<>(
+					services != null ? services.getItems() : null, svc -> svc.getMetadata().getName());
 			for (Pod pod : podList.getItems()) {
 				String deploymentKey = pod.getMetadata().getLabels().get(SPRING_DEPLOYMENT_KEY);
-				for (Service svc : services.getItems()) {
-					// handle case of when the version provided by skipper has been removed
-					if(deploymentKey.startsWith(svc.getMetadata().getName())) {
-						service = svc;
-						break;
-					}
+				// handle case of when the version provided by skipper has been removed
+				Service match = serviceIndex.find(deploymentKey);
+				if (match != null) {
+					service = match;
 				}
-				//find the container with the correct env var
-				for(Container container : pod.getSpec().getContainers()) {
-					if(container.getEnv().stream().anyMatch(envVar -> "SPRING_CLOUD_APPLICATION_GUID".equals(envVar.getName()))) {
-						//find container status for this container
-						Optional<ContainerStatus> containerStatusOptional =
-							pod.getStatus().getContainerStatuses()
-							   .stream().filter(containerStatus -> container.getName().equals(containerStatus.getName()))
-							   .findFirst();
-
-						statusBuilder.with(new KubernetesAppInstanceStatus(pod, service, properties, containerStatusOptional.orElse(null)));
-
-						break;
-					}
+				KubernetesAppInstanceStatus instanceStatus = buildAppInstanceStatus(pod, service);
+				if (instanceStatus != null) {
+					statusBuilder.with(instanceStatus);
 				}
 			}
 		}
 		return statusBuilder.build();
 	}
 
+	/**
+	 * Create the status of the app instance running in the given pod.
+	 *
+	 * @param pod the pod
+	 * @param service the service of the app, may be {@code null}
+	 * @return the instance status, or {@code null} if the pod has no app container
+	 */
+	protected KubernetesAppInstanceStatus buildAppInstanceStatus(Pod pod, Service service) {
+		Container container = findApplicationContainer(pod);
+		if (container == null) {
+			return null;
+		}
+		if (this.runningPhaseDeploymentStateResolver == null) {
+			// the resolver is stateless, so it is shared by all instance statuses
+			this.runningPhaseDeploymentStateResolver = new DefaultRunningPhaseDeploymentStateResolver(properties);
+		}
+		return new KubernetesAppInstanceStatus(pod, service, properties, findContainerStatus(pod, container),
+				this.runningPhaseDeploymentStateResolver);
+	}
+
+	/**
+	 * Find the container of the pod that runs the app, identified by the {@code SPRING_CLOUD_APPLICATION_GUID}
+	 * environment variable.
+	 */
+	private static Container findApplicationContainer(Pod pod) {
+		for (Container container : pod.getSpec().getContainers()) {
+			if (container.getEnv() != null) {
+				for (EnvVar envVar : container.getEnv()) {
+					if ("SPRING_CLOUD_APPLICATION_GUID".equals(envVar.getName())) {
+						return container;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	private static ContainerStatus findContainerStatus(Pod pod, Container container) {
+		if (pod.getStatus() != null && pod.getStatus().getContainerStatuses() != null) {
+			for (ContainerStatus containerStatus : pod.getStatus().getContainerStatuses()) {
+				if (container.getName().equals(containerStatus.getName())) {
+					return containerStatus;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Stream the logs of the given pods, the last {@value #LOG_TAIL_LINES} lines of each and, when following,
+	 * every new line until the pods stop. Of pods with several containers, the container running the app is
+	 * read.
+	 *
+	 * @param pods the pods
+	 * @param follow whether to keep streaming new log lines
+	 * @param lineConsumer the consumer of the log lines, prefixed with the pod name
+	 * @return the log stream
+	 */
+	protected PodLogStream streamPodLogs(List<Pod> pods, boolean follow, Consumer<String> lineConsumer) {
+		Map<String, Supplier<Reader>> logReaders = new LinkedHashMap<>();
+		for (Pod pod : pods) {
+			String podName = pod.getMetadata().getName();
+			Container container = pod.getSpec().getContainers().size() > 1 ? findApplicationContainer(pod) : null;
+			logReaders.put(podName, () -> openLogReader(podName, container, follow));
+		}
+		return PodLogStream.start(logReaders, this.properties.getLogStreamParallelism(), lineConsumer);
+	}
+
+	private Reader openLogReader(String podName, Container container, boolean follow) {
+		TimestampBytesLimitTerminateTimeTailPrettyLoggable<String, LogWatch> log = container != null ?
+				this.client.pods().withName(podName).inContainer(container.getName()) :
+				this.client.pods().withName(podName);
+		Loggable<String, LogWatch> tail = log.tailingLines(LOG_TAIL_LINES);
+		if (!follow) {
+			return tail.getLogReader();
+		}
+		LogWatch logWatch = tail.watchLog();
+		return new InputStreamReader(logWatch.getOutput(), StandardCharsets.UTF_8) {
+
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				}
+				finally {
+					logWatch.close();
+				}
+			}
+		};
+	}
+
 	protected void logPossibleDownloadResourceMessage(Resource resource) {
 		if (logger.isInfoEnabled()) {
 			logger.info("Preparing to run a container from  " + resource
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cloud.deployer.spi.app.AppStatus;
+import org.springframework.cloud.deployer.spi.app.DeploymentState;
+
+/**
+ * Turns pod events of a {@link ResourceCache} into {@link AppStatus} notifications.
+ *
+ * The last known {@link DeploymentState} of every app instance is tracked, and listeners are only notified
+ * with the current status of an app when the state of one of its instances changes, or an instance appears
+ * or disappears. Events that do not change any instance state, such as label or annotation updates, are
+ * dropped.
+ */
+class AppStatusNotifier implements ResourceEventHandler<PodStatusProjection> {
+
+	private static final Log logger = LogFactory.getLog(AppStatusNotifier.class);
+
+	private final Map<String, DeploymentState> instanceStates = new ConcurrentHashMap<>();
+
+	private final List<Consumer<AppStatus>> listeners = new CopyOnWriteArrayList<>();
+
+	private final Function<String, AppStatus> appStatusResolver;
+
+	/**
+	 * Create a notifier.
+	 *
+	 * @param appStatusResolver resolves the current status of an app by id
+	 */
+	AppStatusNotifier(Function<String, AppStatus> appStatusResolver) {
+		this.appStatusResolver = appStatusResolver;
+	}
+
+	void addListener(Consumer<AppStatus> listener) {
+		this.listeners.add(listener);
+	}
+
+	void removeListener(Consumer<AppStatus> listener) {
+		this.listeners.remove(listener);
+	}
+
+	@Override
+	public void onAdd(PodStatusProjection pod) {
+		update(pod);
+	}
+
+	@Override
+	public void onUpdate(PodStatusProjection oldPod, PodStatusProjection newPod) {
+		update(newPod);
+	}
+
+	@Override
+	public void onDelete(PodStatusProjection pod, boolean deletedFinalStateUnknown) {
+		if (this.instanceStates.remove(pod.getName()) != null) {
+			notifyListeners(pod);
+		}
+	}
+
+	private void update(PodStatusProjection pod) {
+		String name = pod.getName();
+		DeploymentState state = pod.getState();
+		DeploymentState previous = state != null ? this.instanceStates.put(name, state) :
+				this.instanceStates.remove(name);
+		if (previous != state) {
+			notifyListeners(pod);
+		}
+	}
+
+	private void notifyListeners(PodStatusProjection pod) {
+		String appId = pod.getAppId();
+		if (appId == null || this.listeners.isEmpty()) {
+			return;
+		}
+		AppStatus status = this.appStatusResolver.apply(appId);
+		for (Consumer<AppStatus> listener : this.listeners) {
+			try {
+				listener.accept(status);
+			}
+			catch (RuntimeException e) {
+				logger.warn(String.format("Status listener failed for app: %s", appId), e);
+			}
+		}
+	}
+}
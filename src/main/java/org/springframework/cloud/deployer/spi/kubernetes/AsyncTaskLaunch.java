@@ -0,0 +1,54 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.cloud.deployer.spi.task.TaskStatus;
+
+/**
+ * A task launched by {@link KubernetesTaskLauncher#launchAsync}: the id of the task and a future of its final
+ * status.
+ */
+public class AsyncTaskLaunch {
+
+	private final String id;
+
+	private final CompletableFuture<TaskStatus> completion;
+
+	AsyncTaskLaunch(String id, CompletableFuture<TaskStatus> completion) {
+		this.id = id;
+		this.completion = completion;
+	}
+
+	/**
+	 * @return the id of the task
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Get the future of the final status of the task. It completes when the task reaches a terminal state, and
+	 * completes exceptionally if the task could not be launched.
+	 *
+	 * @return the future of the final status
+	 */
+	public CompletableFuture<TaskStatus> getCompletion() {
+		return completion;
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+/**
+ * The outcome of one item of a batch operation: the id of the item and, if the operation failed for it, the
+ * error.
+ */
+public class BatchResult {
+
+	private final String id;
+
+	private final RuntimeException error;
+
+	private BatchResult(String id, RuntimeException error) {
+		this.id = id;
+		this.error = error;
+	}
+
+	public static BatchResult success(String id) {
+		return new BatchResult(id, null);
+	}
+
+	public static BatchResult failure(String id, RuntimeException error) {
+		return new BatchResult(id, error);
+	}
+
+	/**
+	 * @return the id of the item, such as the task or schedule id
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return the error, or {@code null} if the operation succeeded
+	 */
+	public RuntimeException getError() {
+		return error;
+	}
+
+	public boolean isSuccess() {
+		return error == null;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchResult{id='" + id + "', error=" + error + "}";
+	}
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * A semaphore of task launch permits shared by all task launchers of a namespace, stored in a ConfigMap.
+ *
+ * Every permit is an entry of the ConfigMap, keyed by task id, holding the id of the launcher that acquired it
+ * and an expiry time. The ConfigMap is only ever replaced at the resource version it was read at, and re-read
+ * on a conflict, so concurrent launchers cannot hand out more permits than the limit. Each launcher renews the
+ * permits of its tasks that are still active and releases those of finished tasks; the permits of a launcher
+ * that stops renewing, because it crashed, expire and are dropped by the next update.
+ *
+ * A task is in the {@link LaunchState#unknown unknown} state between acquiring its permit and the creation of
+ * its pod or Job, so its permit is only released for that state once it is older than the lease duration.
+ */
+class DistributedTaskPermits {
+
+	private static final Log logger = LogFactory.getLog(DistributedTaskPermits.class);
+
+	private static final int MAX_ATTEMPTS = 20;
+
+	private static final long MAX_BACKOFF = 50;
+
+	private final KubernetesClient client;
+
+	private final String configMapName;
+
+	private final IntSupplier maximumPermits;
+
+	private final long leaseDuration;
+
+	private final long renewInterval;
+
+	private final String holderId;
+
+	private final Function<String, LaunchState> launchStateResolver;
+
+	// the time each permit of this launcher was acquired at, by task id
+	private final Map<String, Long> heldPermits = new ConcurrentHashMap<>();
+
+	private final AtomicLong conflictCount = new AtomicLong();
+
+	private ScheduledExecutorService executor;
+
+	/**
+	 * Create a semaphore.
+	 *
+	 * @param client the Kubernetes client
+	 * @param configMapName the name of the ConfigMap holding the permits
+	 * @param maximumPermits supplies the maximum number of permits
+	 * @param leaseDuration the time in milliseconds a permit is valid for unless renewed
+	 * @param renewInterval the time in milliseconds between renewals of the permits of this launcher
+	 * @param holderId the id of this launcher
+	 * @param launchStateResolver resolves the state of a task by id
+	 */
+	DistributedTaskPermits(KubernetesClient client, String configMapName, IntSupplier maximumPermits,
+			long leaseDuration, long renewInterval, String holderId,
+			Function<String, LaunchState> launchStateResolver) {
+		this.client = client;
+		this.configMapName = configMapName;
+		this.maximumPermits = maximumPermits;
+		this.leaseDuration = leaseDuration;
+		this.renewInterval = renewInterval;
+		this.holderId = holderId;
+		this.launchStateResolver = launchStateResolver;
+	}
+
+	/**
+	 * Acquire the permit of a task, if one is free. Acquiring a permit the task already holds succeeds.
+	 *
+	 * @param taskId the id of the task
+	 * @return {@code true} if the task holds a permit
+	 */
+	boolean tryAcquire(String taskId) {
+		long now = System.currentTimeMillis();
+		long expiry = now + this.leaseDuration;
+		boolean acquired = update(permits -> {
+			if (permits.containsKey(taskId)) {
+				return false;
+			}
+			if (permits.size() >= this.maximumPermits.getAsInt()) {
+				return false;
+			}
+			permits.put(taskId, this.holderId + "/" + expiry);
+			return true;
+		}) || this.heldPermits.containsKey(taskId);
+		if (acquired) {
+			this.heldPermits.putIfAbsent(taskId, now);
+			start();
+		}
+		return acquired;
+	}
+
+	/**
+	 * Release the permit of a task, if it holds one.
+	 *
+	 * @param taskId the id of the task
+	 */
+	void release(String taskId) {
+		this.heldPermits.remove(taskId);
+		update(permits -> permits.remove(taskId) != null);
+	}
+
+	/**
+	 * @return the number of unexpired permits held across all launchers
+	 */
+	int getHeldCount() {
+		ConfigMap configMap = this.client.configMaps().withName(this.configMapName).get();
+		if (configMap == null || configMap.getData() == null) {
+			return 0;
+		}
+		Map<String, String> permits = new HashMap<>(configMap.getData());
+		pruneExpired(permits, System.currentTimeMillis());
+		return permits.size();
+	}
+
+	/**
+	 * @return the number of updates that had to be retried because another launcher updated the permits first
+	 */
+	long getConflictCount() {
+		return this.conflictCount.get();
+	}
+
+	/**
+	 * Release the permits of tasks of this launcher that have finished, and renew the others. A permit that
+	 * expired and was dropped, or taken over, by another launcher in the meantime is lost rather than renewed, so
+	 * that renewing never takes the permits above the limit.
+	 */
+	void renew() {
+		long now = System.currentTimeMillis();
+		List<String> finished = new ArrayList<>();
+		for (Map.Entry<String, Long> held : this.heldPermits.entrySet()) {
+			if (isFinished(this.launchStateResolver.apply(held.getKey()), now - held.getValue())) {
+				finished.add(held.getKey());
+			}
+		}
+		this.heldPermits.keySet().removeAll(finished);
+		long expiry = now + this.leaseDuration;
+		String owner = this.holderId + "/";
+		List<String> lost = new ArrayList<>();
+		update(permits -> {
+			lost.clear();
+			boolean changed = false;
+			for (String taskId : finished) {
+				changed |= permits.remove(taskId) != null;
+			}
+			for (String taskId : this.heldPermits.keySet()) {
+				String permit = permits.get(taskId);
+				if (permit == null || !permit.startsWith(owner)) {
+					lost.add(taskId);
+					continue;
+				}
+				permits.put(taskId, owner + expiry);
+				changed = true;
+			}
+			return changed;
+		});
+		if (!lost.isEmpty()) {
+			this.heldPermits.keySet().removeAll(lost);
+			logger.warn(String.format("Lost the expired task launch permits of %s", lost));
+		}
+	}
+
+	/**
+	 * Whether a task no longer needs its permit. A task that is not known yet may still be about to create its pod
+	 * or Job, so it keeps its permit for the lease duration.
+	 *
+	 * @param state the state of the task
+	 * @param age the time in milliseconds since the permit was acquired
+	 * @return {@code true} if the permit can be released
+	 */
+	private boolean isFinished(LaunchState state, long age) {
+		switch (state) {
+		case complete:
+		case failed:
+		case cancelled:
+		case error:
+			return true;
+		case unknown:
+			return age >= this.leaseDuration;
+		default:
+			return false;
+		}
+	}
+
+	synchronized void stop() {
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+			this.executor = null;
+		}
+	}
+
+	private synchronized void start() {
+		if (this.executor == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("task-permits-");
+			threadFactory.setDaemon(true);
+			this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+			this.executor.scheduleWithFixedDelay(this::renewQuietly, this.renewInterval, this.renewInterval,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void renewQuietly() {
+		try {
+			renew();
+		}
+		catch (RuntimeException e) {
+			logger.warn("Failed to renew task launch permits", e);
+		}
+	}
+
+	/**
+	 * Apply a change to the permits, retrying on conflicts with other launchers.
+	 *
+	 * @param mutation changes the unexpired permits, returning whether it changed them
+	 * @return whether the permits were changed
+	 */
+	private boolean update(Predicate<Map<String, String>> mutation) {
+		for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+			ConfigMap configMap = this.client.configMaps().withName(this.configMapName).get();
+			try {
+				if (configMap == null) {
+					Map<String, String> permits = new HashMap<>();
+					if (!mutation.test(permits)) {
+						return false;
+					}
+					this.client.configMaps().create(new ConfigMapBuilder().withNewMetadata()
+							.withName(this.configMapName).endMetadata().withData(permits).build());
+					return true;
+				}
+				Map<String, String> permits = configMap.getData() != null ?
+						new HashMap<>(configMap.getData()) : new HashMap<>();
+				boolean pruned = pruneExpired(permits, System.currentTimeMillis());
+				boolean changed = mutation.test(permits);
+				if (!changed && !pruned) {
+					return false;
+				}
+				configMap.setData(permits);
+				this.client.configMaps().withName(this.configMapName)
+						.lockResourceVersion(configMap.getMetadata().getResourceVersion()).replace(configMap);
+				return changed;
+			}
+			catch (KubernetesClientException e) {
+				if (e.getCode() != HttpURLConnection.HTTP_CONFLICT) {
+					throw e;
+				}
+				this.conflictCount.incrementAndGet();
+				backOff();
+			}
+		}
+		throw new IllegalStateException(String.format("Could not update the task launch permits in ConfigMap %s "
+				+ "after %d attempts", this.configMapName, MAX_ATTEMPTS));
+	}
+
+	private void backOff() {
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(MAX_BACKOFF));
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while updating the task launch permits", e);
+		}
+	}
+
+	/**
+	 * Drop the expired permits.
+	 *
+	 * @return whether any permit expired
+	 */
+	private static boolean pruneExpired(Map<String, String> permits, long now) {
+		boolean pruned = false;
+		for (Iterator<Map.Entry<String, String>> it = permits.entrySet().iterator(); it.hasNext();) {
+			if (getExpiry(it.next().getValue()) < now) {
+				it.remove();
+				pruned = true;
+			}
+		}
+		return pruned;
+	}
+
+	private static long getExpiry(String permit) {
+		try {
+			return Long.parseLong(permit.substring(permit.lastIndexOf('/') + 1));
+		}
+		catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+}
@@ -16,16 +16,23 @@
 
 package org.springframework.cloud.deployer.spi.kubernetes;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import io.fabric8.kubernetes.api.model.Container;
 import io.fabric8.kubernetes.api.model.ContainerBuilder;
+import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
 import io.fabric8.kubernetes.api.model.PersistentVolumeClaimBuilder;
 import io.fabric8.kubernetes.api.model.PersistentVolumeClaimList;
@@ -41,12 +48,15 @@ import io.fabric8.kubernetes.api.model.VolumeBuilder;
 import io.fabric8.kubernetes.api.model.VolumeMountBuilder;
 import io.fabric8.kubernetes.api.model.apps.Deployment;
 import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.apps.DeploymentCondition;
 import io.fabric8.kubernetes.api.model.apps.DeploymentList;
+import io.fabric8.kubernetes.api.model.apps.DeploymentStatus;
 import io.fabric8.kubernetes.api.model.apps.StatefulSet;
 import io.fabric8.kubernetes.api.model.apps.StatefulSetBuilder;
 import io.fabric8.kubernetes.api.model.apps.StatefulSetList;
 import io.fabric8.kubernetes.api.model.apps.StatefulSetSpec;
 import io.fabric8.kubernetes.api.model.apps.StatefulSetSpecBuilder;
+import io.fabric8.kubernetes.api.model.apps.StatefulSetStatus;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher;
@@ -54,7 +64,9 @@ import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
 import io.fabric8.kubernetes.client.dsl.ScalableResource;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.deployer.spi.app.AppDeployer;
 import org.springframework.cloud.deployer.spi.app.AppScaleRequest;
@@ -78,10 +90,18 @@ import org.springframework.util.StringUtils;
  * @author Christian Tzolov
  * @author Omar Gonzalez
  */
-public class KubernetesAppDeployer extends AbstractKubernetesDeployer implements AppDeployer {
+public class KubernetesAppDeployer extends AbstractKubernetesDeployer implements AppDeployer, DisposableBean {
 
 	protected final Log logger = LogFactory.getLog(getClass().getName());
 
+	private ResourceCache<Pod, PodStatusProjection> podCache;
+
+	private ResourceCache<Service, ServiceStatusProjection> serviceCache;
+
+	private final StatusCoalescer<AppStatus> statusCoalescer;
+
+	private final AppStatusNotifier statusNotifier = new AppStatusNotifier(this::buildCachedAppStatus);
+
 	@Autowired
 	public KubernetesAppDeployer(KubernetesDeployerProperties properties, KubernetesClient client) {
 		this(properties, client, new DefaultContainerFactory(properties));
@@ -95,6 +115,8 @@ public class KubernetesAppDeployer extends AbstractKubernetesDeployer implements
 		this.containerFactory = containerFactory;
 		this.deploymentPropertiesResolver = new DeploymentPropertiesResolver(
 				KubernetesDeployerProperties.KUBERNETES_DEPLOYER_PROPERTIES_PREFIX, properties);
+		this.statusCoalescer = new StatusCoalescer<>(properties.getStatusCoalescing().isEnabled(),
+				properties.getStatusCoalescing().getTtl());
 	}
 
 	@Override
@@ -103,7 +125,7 @@ public class KubernetesAppDeployer extends AbstractKubernetesDeployer implements
 		logger.debug(String.format("Deploying app: %s", appId));
 
 		try {
-			AppStatus status = status(appId);
+			AppStatus status = computeStatus(appId);
 
 			if (!status.getState().equals(DeploymentState.unknown)) {
 				throw new IllegalStateException(String.format("App '%s' is already deployed", appId));
@@ -120,6 +142,7 @@ public class KubernetesAppDeployer extends AbstractKubernetesDeployer implements
 			else {
 				createDeployment(request);
 			}
+			this.statusCoalescer.invalidate(appId);
 			return appId;
 		}
 		catch (RuntimeException e) {
@@ -131,7 +154,7 @@ public class KubernetesAppDeployer extends AbstractKubernetesDeployer implements
 	@Override
 	public void undeploy(String appId) {
 		logger.debug(String.format("Undeploying app: %s", appId));
-		AppStatus status = status(appId);
+		AppStatus status = computeStatus(appId);
 		if (status.getState().equals(DeploymentState.unknown)) {
 			// ensure objects for this appId are deleted in the event a previous deployment failed.
 			// allows for log inspection prior to making an undeploy request.
@@ -147,14 +170,119 @@ public class KubernetesAppDeployer extends AbstractKubernetesDeployer implements
 			logger.error(e.getMessage(), e);
 			throw e;
 		}
+		finally {
+			this.statusCoalescer.invalidate(appId);
+		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * When status coalescing is enabled, concurrent calls for the same app share one computation, and the
+	 * result is reused for the configured time-to-live.
+	 */
 	@Override
 	public AppStatus status(String appId) {
+		return this.statusCoalescer.get(appId,
+				properties.isSummaryStatus() ? this::summaryStatus : this::computeStatus);
+	}
+
+	/**
+	 * Get a summary status of the app read from its Deployment or StatefulSet in a single request. If the
+	 * workload is fully rolled out and all of its replicas are ready, an aggregate {@link AppStatus} with
+	 * state {@link DeploymentState#deployed} and no instance details is returned. Otherwise, including
+	 * when the workload does not exist or is scaled to zero, the status is resolved from the pods as by
+	 * {@link #status(String)}.
+	 *
+	 * @param appId the app id
+	 * @return the app status
+	 */
+	public AppStatus summaryStatus(String appId) {
+		if (isStatusCacheSynced()) {
+			return computeStatus(appId);
+		}
+		Deployment deployment = client.apps().deployments().withName(appId).get();
+		boolean ready;
+		if (deployment != null) {
+			ready = isReady(deployment);
+		}
+		else {
+			StatefulSet statefulSet = client.apps().statefulSets().withName(appId).get();
+			ready = statefulSet != null && isReady(statefulSet);
+		}
+		if (!ready) {
+			logger.debug(String.format("Workload for app: %s is not ready, resolving status from pods", appId));
+			return computeStatus(appId);
+		}
+		return AppStatus.of(appId).generalState(DeploymentState.deployed).build();
+	}
+
+	/**
+	 * Get the statistics of the status coalescing layer.
+	 *
+	 * @return the status coalescer
+	 */
+	public StatusCoalescer<AppStatus> getStatusCoalescer() {
+		return this.statusCoalescer;
+	}
+
+	private AppStatus computeStatus(String appId) {
+		if (isStatusCacheSynced()) {
+			return buildCachedAppStatus(appId);
+		}
 		Map<String, String> selector = new HashMap<>();
 		ServiceList services = client.services().withLabel(SPRING_APP_KEY, appId).list();
 		selector.put(SPRING_APP_KEY, appId);
 		PodList podList = client.pods().withLabels(selector).list();
+		return buildAndLogAppStatus(appId, podList, services);
+	}
+
+	/**
+	 * Get the status of several apps at once. Rather than listing Pods and Services per app, they are
+	 * fetched once for all the apps with a set-based {@code spring-app-id in (...)} label selector and then
+	 * grouped by app.
+	 *
+	 * @param appIds the ids of the apps
+	 * @return the status of each app keyed by app id, in the iteration order of the given ids
+	 */
+	public Map<String, AppStatus> statuses(Collection<String> appIds) {
+		Map<String, AppStatus> statuses = new LinkedHashMap<>();
+		if (appIds.isEmpty()) {
+			return statuses;
+		}
+		if (isStatusCacheSynced()) {
+			for (String appId : appIds) {
+				statuses.put(appId, buildCachedAppStatus(appId));
+			}
+			return statuses;
+		}
+		Map<String, List<Pod>> podsByApp = new HashMap<>();
+		Map<String, List<Service>> servicesByApp = new HashMap<>();
+		String[] ids = appIds.toArray(new String[0]);
+		for (Service service : client.services().withLabelIn(SPRING_APP_KEY, ids).list().getItems()) {
+			servicesByApp.computeIfAbsent(service.getMetadata().getLabels().get(SPRING_APP_KEY),
+					appId -> new ArrayList<>()).add(service);
+		}
+		for (Pod pod : client.pods().withLabelIn(SPRING_APP_KEY, ids).list().getItems()) {
+			podsByApp.computeIfAbsent(pod.getMetadata().getLabels().get(SPRING_APP_KEY),
+					appId -> new ArrayList<>()).add(pod);
+		}
+		for (String appId : appIds) {
+			PodList podList = new PodList();
+			podList.setItems(podsByApp.getOrDefault(appId, Collections.emptyList()));
+			ServiceList services = new ServiceList();
+			services.setItems(servicesByApp.getOrDefault(appId, Collections.emptyList()));
+			statuses.put(appId, buildAndLogAppStatus(appId, podList, services));
+		}
+		return statuses;
+	}
+
+	@Override
+	public Flux<AppStatus> statusesReactive(String... ids) {
+		return Flux.defer(() -> Flux.fromIterable(statuses(Arrays.asList(ids)).values()));
+	}
+
+	private AppStatus buildAndLogAppStatus(String appId, PodList podList, ServiceList services) {
 		if (logger.isDebugEnabled()) {
 			logger.debug(String.format("Building AppStatus for app: %s", appId));
 			if (podList != null && podList.getItems() != null) {
@@ -199,6 +327,21 @@ public class KubernetesAppDeployer extends AbstractKubernetesDeployer implements
 		return logAppender.toString();
 	}
 
+	/**
+	 * Stream the logs of the instances of an app to a consumer, line by line, each line prefixed with the name
+	 * of its pod. Unlike {@link #getLog(String)}, the pods are read concurrently and the logs are never held in
+	 * memory as a whole.
+	 *
+	 * @param appId the app id
+	 * @param follow whether to keep streaming new log lines until the stream is closed or the pods stop
+	 * @param lineConsumer the consumer of the log lines
+	 * @return the log stream, to be closed to stop streaming
+	 */
+	public PodLogStream streamLog(String appId, boolean follow, Consumer<String> lineConsumer) {
+		List<Pod> pods = client.pods().withLabel(SPRING_APP_KEY, appId).list().getItems();
+		return streamPodLogs(pods, follow, lineConsumer);
+	}
+
 	@Override
 	public void scale(AppScaleRequest appScaleRequest) {
 		String deploymentId = appScaleRequest.getDeploymentId();
@@ -212,6 +355,7 @@ public class KubernetesAppDeployer extends AbstractKubernetesDeployer implements
 			throw new IllegalStateException(String.format("App '%s' is not deployed", deploymentId));
 		}
 		scalableResource.scale(appScaleRequest.getCount(), true);
+		this.statusCoalescer.invalidate(deploymentId);
 	}
 
 	@Override
@@ -219,6 +363,141 @@ public class KubernetesAppDeployer extends AbstractKubernetesDeployer implements
 		return super.createRuntimeEnvironmentInfo(AppDeployer.class, this.getClass());
 	}
 
+	@Override
+	public synchronized void destroy() {
+		if (this.podCache != null) {
+			this.podCache.stop();
+			this.serviceCache.stop();
+		}
+	}
+
+	/**
+	 * Register a listener that is called with the current status of an app whenever the
+	 * {@link DeploymentState} of one of its instances changes, or an instance is added or removed. The
+	 * listener is driven by pod watch events, so registering it starts the watch-driven Pod and Service
+	 * caches even if they are not enabled for {@link #status(String)}. The listener is called on the watch
+	 * thread and should not block.
+	 *
+	 * @param listener the listener
+	 */
+	public void addStatusListener(Consumer<AppStatus> listener) {
+		this.statusNotifier.addListener(listener);
+		startStatusCache();
+	}
+
+	/**
+	 * Remove a listener previously registered with {@link #addStatusListener(Consumer)}.
+	 *
+	 * @param listener the listener
+	 */
+	public void removeStatusListener(Consumer<AppStatus> listener) {
+		this.statusNotifier.removeListener(listener);
+	}
+
+	/**
+	 * Get a {@link Flux} of app status changes, as described in {@link #addStatusListener(Consumer)}. A
+	 * listener is registered for each subscriber and removed when the subscription is cancelled.
+	 *
+	 * @return the status changes of all apps
+	 */
+	public Flux<AppStatus> statusChanges() {
+		return Flux.create(sink -> {
+			Consumer<AppStatus> listener = sink::next;
+			sink.onDispose(() -> removeStatusListener(listener));
+			addStatusListener(listener);
+		});
+	}
+
+	/**
+	 * Determine whether status can be answered from the watch-driven Pod and Service caches, starting the
+	 * caches on first use when they are enabled.
+	 *
+	 * @return {@code true} if the caches are enabled and in sync with the cluster
+	 */
+	private boolean isStatusCacheSynced() {
+		if (!properties.getStatusCache().isEnabled()) {
+			return false;
+		}
+		startStatusCache();
+		return this.podCache.isSynced() && this.serviceCache.isSynced();
+	}
+
+	private synchronized void startStatusCache() {
+		if (this.podCache == null) {
+			long resyncPeriod = TimeUnit.SECONDS.toMillis(properties.getStatusCache().getResyncPeriod());
+			this.podCache = new ResourceCache<>("pods",
+					client.pods().withLabel(SPRING_MARKER_KEY, SPRING_MARKER_VALUE), SPRING_APP_KEY,
+					pod -> PodStatusProjection.of(pod, buildAppInstanceStatus(pod, null)), resyncPeriod);
+			this.serviceCache = new ResourceCache<>("services",
+					client.services().withLabel(SPRING_MARKER_KEY, SPRING_MARKER_VALUE), SPRING_APP_KEY,
+					ServiceStatusProjection::of, resyncPeriod);
+			// services first, so that statuses built from pod events can see them
+			this.serviceCache.start();
+			this.podCache.addEventHandler(this.statusNotifier);
+			this.podCache.start();
+		}
+	}
+
+	private static boolean isReady(Deployment deployment) {
+		DeploymentStatus status = deployment.getStatus();
+		Integer desired = deployment.getSpec() != null ? deployment.getSpec().getReplicas() : null;
+		if (status == null || desired == null || desired == 0
+				|| !isObserved(deployment, status.getObservedGeneration())) {
+			return false;
+		}
+		if (status.getConditions() != null) {
+			for (DeploymentCondition condition : status.getConditions()) {
+				if (("Available".equals(condition.getType()) || "Progressing".equals(condition.getType()))
+						&& "False".equals(condition.getStatus())) {
+					return false;
+				}
+			}
+		}
+		return desired.equals(status.getReplicas()) && desired.equals(status.getUpdatedReplicas())
+				&& desired.equals(status.getReadyReplicas()) && desired.equals(status.getAvailableReplicas());
+	}
+
+	private static boolean isReady(StatefulSet statefulSet) {
+		StatefulSetStatus status = statefulSet.getStatus();
+		Integer desired = statefulSet.getSpec() != null ? statefulSet.getSpec().getReplicas() : null;
+		if (status == null || desired == null || desired == 0
+				|| !isObserved(statefulSet, status.getObservedGeneration())) {
+			return false;
+		}
+		return desired.equals(status.getReplicas()) && desired.equals(status.getReadyReplicas())
+				&& (status.getUpdateRevision() == null
+						|| status.getUpdateRevision().equals(status.getCurrentRevision()));
+	}
+
+	private static boolean isObserved(HasMetadata workload, Long observedGeneration) {
+		Long generation = workload.getMetadata().getGeneration();
+		return generation == null || (observedGeneration != null && observedGeneration >= generation);
+	}
+
+	/**
+	 * Build the status of an app from the projections held by the status cache, matching services to pods
+	 * the same way as {@link #buildAppStatus(String, PodList, ServiceList)}.
+	 */
+	private AppStatus buildCachedAppStatus(String appId) {
+		AppStatus.Builder statusBuilder = AppStatus.of(appId);
+		List<PodStatusProjection> pods = this.podCache.get(appId);
+		if (!pods.isEmpty()) {
+			ServicePrefixIndex<ServiceStatusProjection> serviceIndex = new ServicePrefixIndex<>(
+					this.serviceCache.get(appId), ServiceStatusProjection::getName);
+			ServiceStatusProjection service = null;
+			for (PodStatusProjection pod : pods) {
+				ServiceStatusProjection match = serviceIndex.find(pod.getDeploymentKey());
+				if (match != null) {
+					service = match;
+				}
+				if (pod.getState() != null) {
+					statusBuilder.with(pod.toInstanceStatus(service));
+				}
+			}
+		}
+		return statusBuilder.build();
+	}
+
 	private Deployment createDeployment(AppDeploymentRequest request) {
 
 		String appId = createDeploymentId(request);
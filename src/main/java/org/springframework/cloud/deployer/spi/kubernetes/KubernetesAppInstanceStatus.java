@@ -62,11 +62,16 @@ public class KubernetesAppInstanceStatus implements AppInstanceStatus {
 	}
 
 	public KubernetesAppInstanceStatus(Pod pod, Service service, KubernetesDeployerProperties properties, ContainerStatus containerStatus) {
+		this(pod, service, properties, containerStatus, new DefaultRunningPhaseDeploymentStateResolver(properties));
+	}
+
+	KubernetesAppInstanceStatus(Pod pod, Service service, KubernetesDeployerProperties properties,
+			ContainerStatus containerStatus, RunningPhaseDeploymentStateResolver runningPhaseDeploymentStateResolver) {
 		this.pod = pod;
 		this.service = service;
 		this.properties = properties;
 		this.containerStatus = containerStatus;
-		this.runningPhaseDeploymentStateResolver = new DefaultRunningPhaseDeploymentStateResolver(properties);
+		this.runningPhaseDeploymentStateResolver = runningPhaseDeploymentStateResolver;
 	}
 
 	/**
@@ -121,7 +126,13 @@ public class KubernetesAppInstanceStatus implements AppInstanceStatus {
 	@Override
 	public Map<String, String> getAttributes() {
 		Map<String, String> result = new HashMap<>();
+		putPodAttributes(result, pod);
+		putServiceAttributes(result, service);
+		putContainerAttributes(result, containerStatus);
+		return result;
+	}
 
+	static void putPodAttributes(Map<String, String> result, Pod pod) {
 		if (pod != null) {
 			result.put("pod.name", pod.getMetadata().getName());
 			result.put("pod.startTime", pod.getStatus().getStartTime());
@@ -134,6 +145,9 @@ public class KubernetesAppInstanceStatus implements AppInstanceStatus {
 				pod.getMetadata().getLabels().get(AbstractKubernetesDeployer.SPRING_DEPLOYMENT_KEY));
 			result.put("guid", pod.getMetadata().getUid());
 		}
+	}
+
+	static void putServiceAttributes(Map<String, String> result, Service service) {
 		if (service != null) {
 			result.put("service.name", service.getMetadata().getName());
 			if ("LoadBalancer".equals(service.getSpec().getType())) {
@@ -158,6 +172,9 @@ public class KubernetesAppInstanceStatus implements AppInstanceStatus {
 				}
 			}
 		}
+	}
+
+	static void putContainerAttributes(Map<String, String> result, ContainerStatus containerStatus) {
 		if (containerStatus != null) {
 			result.put("container.restartCount", "" + containerStatus.getRestartCount());
 			if (containerStatus.getLastState() != null && containerStatus.getLastState().getTerminated() != null) {
@@ -172,11 +189,5 @@ public class KubernetesAppInstanceStatus implements AppInstanceStatus {
 				result.put("container.state.terminated.reason", containerStatus.getState().getTerminated().getReason());
 			}
 		}
-		return result;
 	}
 }
-
-
-
-
-
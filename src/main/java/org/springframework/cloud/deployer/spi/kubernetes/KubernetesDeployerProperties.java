@@ -388,6 +388,66 @@ public class KubernetesDeployerProperties {
 		}
 	}
 
+	public static class StatusCache {
+
+		/**
+		 * Whether app status is answered from a watch-driven cache of Pods and Services instead of
+		 * listing them from the API server on every request.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Time in seconds between full resyncs of the cache. A value of 0 disables resync.
+		 */
+		private int resyncPeriod = 300;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getResyncPeriod() {
+			return resyncPeriod;
+		}
+
+		public void setResyncPeriod(int resyncPeriod) {
+			this.resyncPeriod = resyncPeriod;
+		}
+	}
+
+	public static class StatusCoalescing {
+
+		/**
+		 * Whether concurrent status queries for the same app or task share a single computation.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Time in milliseconds a computed status is reused for. A value of 0 only shares computations that
+		 * are in flight.
+		 */
+		private long ttl = 1000;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public long getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(long ttl) {
+			this.ttl = ttl;
+		}
+	}
+
 
 	/**
 	 * Name of the environment variable that can define the Kubernetes namespace to use.
@@ -709,6 +769,29 @@ public class KubernetesDeployerProperties {
 	 */
 	private List<Container> additionalContainers;
 
+	/**
+	 * The watch-driven status cache settings.
+	 */
+	private StatusCache statusCache = new StatusCache();
+
+	/**
+	 * The status query coalescing settings.
+	 */
+	private StatusCoalescing statusCoalescing = new StatusCoalescing();
+
+	/**
+	 * Whether app status is read as a summary from the Deployment or StatefulSet of the app, without
+	 * per-instance details, when the workload is fully rolled out and ready. Degraded workloads are still
+	 * resolved from their pods.
+	 */
+	private boolean summaryStatus = false;
+
+	/**
+	 * The maximum number of pods whose logs are read concurrently by a log stream. When following the logs of
+	 * more pods, the logs of the others are read as earlier pods stop.
+	 */
+	private int logStreamParallelism = 16;
+
 	public String getNamespace() {
 		return namespace;
 	}
@@ -1357,4 +1440,36 @@ public class KubernetesDeployerProperties {
 	public void setReadinessHttpProbeScheme(String readinessHttpProbeScheme) {
 		this.readinessHttpProbeScheme = readinessHttpProbeScheme;
 	}
+
+	public StatusCache getStatusCache() {
+		return statusCache;
+	}
+
+	public void setStatusCache(StatusCache statusCache) {
+		this.statusCache = statusCache;
+	}
+
+	public StatusCoalescing getStatusCoalescing() {
+		return statusCoalescing;
+	}
+
+	public void setStatusCoalescing(StatusCoalescing statusCoalescing) {
+		this.statusCoalescing = statusCoalescing;
+	}
+
+	public boolean isSummaryStatus() {
+		return summaryStatus;
+	}
+
+	public void setSummaryStatus(boolean summaryStatus) {
+		this.summaryStatus = summaryStatus;
+	}
+
+	public int getLogStreamParallelism() {
+		return logStreamParallelism;
+	}
+
+	public void setLogStreamParallelism(int logStreamParallelism) {
+		this.logStreamParallelism = logStreamParallelism;
+	}
 }
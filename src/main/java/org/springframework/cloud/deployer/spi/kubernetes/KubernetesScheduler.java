@@ -19,11 +19,18 @@ package org.springframework.cloud.deployer.spi.kubernetes;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.fabric8.kubernetes.api.model.LocalObjectReference;
 import io.fabric8.kubernetes.api.model.PodSpec;
 import io.fabric8.kubernetes.api.model.StatusCause;
@@ -32,7 +39,11 @@ import io.fabric8.kubernetes.api.model.batch.CronJobBuilder;
 import io.fabric8.kubernetes.api.model.batch.CronJobList;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
 
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.deployer.spi.kubernetes.support.PropertyParserUtils;
 import org.springframework.cloud.deployer.spi.scheduler.CreateScheduleException;
 import org.springframework.cloud.deployer.spi.scheduler.ScheduleInfo;
 import org.springframework.cloud.deployer.spi.scheduler.ScheduleRequest;
@@ -41,6 +52,7 @@ import org.springframework.cloud.deployer.spi.scheduler.SchedulerException;
 import org.springframework.cloud.deployer.spi.scheduler.SchedulerPropertyKeys;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -49,11 +61,39 @@ import org.springframework.util.StringUtils;
  * @author Chris Schaefer
  * @author Ilayaperumal Gopinathan
  */
-public class KubernetesScheduler extends AbstractKubernetesDeployer implements Scheduler {
+public class KubernetesScheduler extends AbstractKubernetesDeployer implements Scheduler, DisposableBean {
 	private static final String SPRING_CRONJOB_ID_KEY = "spring-cronjob-id";
 
 	private static final String SCHEDULE_EXPRESSION_FIELD_NAME = "spec.schedule";
 
+	private static final String SPEC_HASH_ANNOTATION = "spring-cronjob-spec-hash";
+
+	private static final String REQUESTED_SCHEDULE_ANNOTATION = "spring-cronjob-requested-schedule";
+
+	private static final String SCHEDULE_SPREAD_WINDOW_PROPERTY =
+			KubernetesSchedulerProperties.KUBERNETES_SCHEDULER_PROPERTIES_PREFIX + ".scheduleSpreadWindow";
+
+	private static final Map<String, String> CRON_MACROS;
+
+	static {
+		Map<String, String> cronMacros = new HashMap<>();
+		cronMacros.put("@yearly", "0 0 1 1 *");
+		cronMacros.put("@annually", "0 0 1 1 *");
+		cronMacros.put("@monthly", "0 0 1 * *");
+		cronMacros.put("@weekly", "0 0 * * 0");
+		cronMacros.put("@daily", "0 0 * * *");
+		cronMacros.put("@midnight", "0 0 * * *");
+		cronMacros.put("@hourly", "0 * * * *");
+		CRON_MACROS = Collections.unmodifiableMap(cronMacros);
+	}
+
+	private static final ObjectMapper SPEC_HASH_MAPPER = new ObjectMapper()
+			.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+	private final KubernetesSchedulerProperties schedulerProperties;
+
+	private ResourceCache<CronJob, ScheduleInfo> scheduleCache;
+
 	public KubernetesScheduler(KubernetesClient client,
 			KubernetesSchedulerProperties properties) {
 		Assert.notNull(client, "KubernetesClient must not be null");
@@ -61,6 +101,7 @@ public class KubernetesScheduler extends AbstractKubernetesDeployer implements S
 
 		this.client = client;
 		this.properties = properties;
+		this.schedulerProperties = properties;
 		this.containerFactory = new DefaultContainerFactory(properties);
 		this.deploymentPropertiesResolver = new DeploymentPropertiesResolver(
 				KubernetesSchedulerProperties.KUBERNETES_SCHEDULER_PROPERTIES_PREFIX, properties);
@@ -76,14 +117,105 @@ public class KubernetesScheduler extends AbstractKubernetesDeployer implements S
 			createCronJob(scheduleRequest);
 		}
 		catch (KubernetesClientException e) {
-			String invalidCronExceptionMessage = getExceptionMessageForField(e, SCHEDULE_EXPRESSION_FIELD_NAME);
+			throw toCreateScheduleException(scheduleRequest, e);
+		}
+	}
+
+	/**
+	 * Create or update the schedule of a request so that its CronJob matches the request. The CronJob is only
+	 * written when it does not exist or the spec hash stamped on it differs from the hash of the request, in
+	 * which case it is patched in place, keeping the history of its Jobs.
+	 *
+	 * @param scheduleRequest the schedule request
+	 * @return {@code true} if the CronJob was created or patched, {@code false} if it was already up to date
+	 */
+	public boolean apply(ScheduleRequest scheduleRequest) {
+		scheduleRequest.setSchedulerProperties(mergeSchedulerProperties(scheduleRequest));
+		validateScheduleName(scheduleRequest);
+		try {
+			CronJob cronJob = buildCronJob(scheduleRequest);
+			CronJob existing = this.client.batch().cronjobs().withName(scheduleRequest.getScheduleName()).get();
+			if (existing == null) {
+				createCronJob(scheduleRequest);
+				return true;
+			}
+			String specHash = cronJob.getMetadata().getAnnotations().get(SPEC_HASH_ANNOTATION);
+			Map<String, String> existingAnnotations = existing.getMetadata().getAnnotations();
+			if (existingAnnotations != null && specHash.equals(existingAnnotations.get(SPEC_HASH_ANNOTATION))) {
+				logger.debug(String.format("Schedule %s is up to date", scheduleRequest.getScheduleName()));
+				return false;
+			}
+			// keep the server managed metadata and status, so that the patch only touches what we render
+			CronJob updated = new CronJobBuilder(existing).editMetadata()
+					.withLabels(cronJob.getMetadata().getLabels())
+					.withAnnotations(cronJob.getMetadata().getAnnotations()).endMetadata()
+					.withSpec(cronJob.getSpec()).build();
+			CronJob patched = this.client.batch().cronjobs().withName(scheduleRequest.getScheduleName())
+					.patch(updated);
+			if (this.scheduleCache != null) {
+				this.scheduleCache.update(patched);
+			}
+			logger.debug(String.format("Patched schedule %s", scheduleRequest.getScheduleName()));
+			return true;
+		}
+		catch (KubernetesClientException e) {
+			throw toCreateScheduleException(scheduleRequest, e);
+		}
+	}
 
-			if (StringUtils.hasText(invalidCronExceptionMessage)) {
-				throw new CreateScheduleException(invalidCronExceptionMessage, e);
+	/**
+	 * Schedule a batch of tasks. All schedule names are validated up front, then the CronJobs of the valid
+	 * requests are built and created concurrently over the shared client, at most
+	 * {@link KubernetesSchedulerProperties#getBatchParallelism()} at a time.
+	 *
+	 * @param scheduleRequests the schedule requests
+	 * @return one result per request, in order, holding the schedule name and the error if scheduling failed
+	 */
+	public List<BatchResult> schedule(List<ScheduleRequest> scheduleRequests) {
+		List<BatchResult> results = new ArrayList<>(Collections.nCopies(scheduleRequests.size(), null));
+		List<Integer> valid = new ArrayList<>();
+		for (int i = 0; i < scheduleRequests.size(); i++) {
+			ScheduleRequest scheduleRequest = scheduleRequests.get(i);
+			try {
+				scheduleRequest.setSchedulerProperties(mergeSchedulerProperties(scheduleRequest));
+				validateScheduleName(scheduleRequest);
+				valid.add(i);
 			}
+			catch (RuntimeException e) {
+				results.set(i, BatchResult.failure(scheduleRequest.getScheduleName(), e));
+			}
+		}
+
+		List<BatchResult> scheduled = ParallelBatch.run("schedule", valid,
+				this.schedulerProperties.getBatchParallelism(), i -> {
+					ScheduleRequest scheduleRequest = scheduleRequests.get(i);
+					try {
+						createCronJob(scheduleRequest);
+						return BatchResult.success(scheduleRequest.getScheduleName());
+					}
+					catch (KubernetesClientException e) {
+						return BatchResult.failure(scheduleRequest.getScheduleName(),
+								toCreateScheduleException(scheduleRequest, e));
+					}
+					catch (RuntimeException e) {
+						return BatchResult.failure(scheduleRequest.getScheduleName(), e);
+					}
+				});
+		for (int i = 0; i < valid.size(); i++) {
+			results.set(valid.get(i), scheduled.get(i));
+		}
+		return results;
+	}
 
-			throw new CreateScheduleException("Failed to create schedule " + scheduleRequest.getScheduleName(), e);
+	private CreateScheduleException toCreateScheduleException(ScheduleRequest scheduleRequest,
+			KubernetesClientException e) {
+		String invalidCronExceptionMessage = getExceptionMessageForField(e, SCHEDULE_EXPRESSION_FIELD_NAME);
+
+		if (StringUtils.hasText(invalidCronExceptionMessage)) {
+			return new CreateScheduleException(invalidCronExceptionMessage, e);
 		}
+
+		return new CreateScheduleException("Failed to create schedule " + scheduleRequest.getScheduleName(), e);
 	}
 
 	/**
@@ -126,53 +258,144 @@ public class KubernetesScheduler extends AbstractKubernetesDeployer implements S
 
 	@Override
 	public void unschedule(String scheduleName) {
+		if (isScheduleCacheSynced() && this.scheduleCache.getByName(scheduleName) == null) {
+			throw new SchedulerException("Failed to unschedule schedule " + scheduleName + " does not exist.");
+		}
 		boolean unscheduled = this.client.batch().cronjobs().withName(scheduleName).delete();
 
 		if (!unscheduled) {
 			throw new SchedulerException("Failed to unschedule schedule " + scheduleName + " does not exist.");
 		}
+		if (this.scheduleCache != null) {
+			this.scheduleCache.evict(scheduleName);
+		}
+	}
+
+	/**
+	 * Unschedule a batch of schedules, deleting their CronJobs concurrently over the shared client, at most
+	 * {@link KubernetesSchedulerProperties#getBatchParallelism()} at a time.
+	 *
+	 * @param scheduleNames the names of the schedules
+	 * @return one result per schedule name, in order, holding the error if unscheduling failed
+	 */
+	public List<BatchResult> unschedule(List<String> scheduleNames) {
+		return ParallelBatch.run("unschedule", scheduleNames, this.schedulerProperties.getBatchParallelism(),
+				scheduleName -> {
+					try {
+						unschedule(scheduleName);
+						return BatchResult.success(scheduleName);
+					}
+					catch (RuntimeException e) {
+						return BatchResult.failure(scheduleName, e);
+					}
+				});
 	}
 
 	@Override
 	public List<ScheduleInfo> list(String taskDefinitionName) {
-		return list()
-				.stream()
-				.filter(scheduleInfo -> taskDefinitionName.equals(scheduleInfo.getTaskDefinitionName()))
-				.collect(Collectors.toList());
+		if (isScheduleCacheSynced()) {
+			return this.scheduleCache.get(taskDefinitionName);
+		}
+		return stream(taskDefinitionName).collect(Collectors.toList());
 	}
 
 	@Override
 	public List<ScheduleInfo> list() {
-		CronJobList cronJobList = this.client.batch().cronjobs().list();
+		if (isScheduleCacheSynced()) {
+			return this.scheduleCache.getAll();
+		}
+		return stream().collect(Collectors.toList());
+	}
 
-		List<CronJob> cronJobs = cronJobList.getItems();
-		List<ScheduleInfo> scheduleInfos = new ArrayList<>();
+	/**
+	 * Stop the schedule cache, if it was started.
+	 */
+	@Override
+	public synchronized void destroy() {
+		if (this.scheduleCache != null) {
+			this.scheduleCache.stop();
+		}
+	}
+
+	/**
+	 * Stream the schedules of a task definition. The CronJobs are selected by label on the server and fetched
+	 * lazily, {@link KubernetesSchedulerProperties#getListPageSize()} at a time, as the stream is consumed.
+	 *
+	 * @param taskDefinitionName the name of the task definition
+	 * @return the schedules of the task definition
+	 */
+	public Stream<ScheduleInfo> stream(String taskDefinitionName) {
+		return streamScheduleInfos(this.client.batch().cronjobs().withLabel(SPRING_CRONJOB_ID_KEY,
+				taskDefinitionName));
+	}
 
-		for (CronJob cronJob : cronJobs) {
-			if (cronJob.getMetadata() != null && cronJob.getMetadata().getLabels() != null &&
-					StringUtils.hasText(cronJob.getMetadata().getLabels().get(SPRING_CRONJOB_ID_KEY))) {
-				Map<String, String> properties = new HashMap<>();
-				properties.put(SchedulerPropertyKeys.CRON_EXPRESSION, cronJob.getSpec().getSchedule());
+	/**
+	 * Stream all schedules. The CronJobs are selected by label on the server and fetched lazily,
+	 * {@link KubernetesSchedulerProperties#getListPageSize()} at a time, as the stream is consumed.
+	 *
+	 * @return the schedules
+	 */
+	public Stream<ScheduleInfo> stream() {
+		return streamScheduleInfos(this.client.batch().cronjobs().withLabel(SPRING_CRONJOB_ID_KEY));
+	}
 
-				ScheduleInfo scheduleInfo = new ScheduleInfo();
-				scheduleInfo.setScheduleName(cronJob.getMetadata().getName());
-				scheduleInfo.setTaskDefinitionName(cronJob.getMetadata().getLabels().get(SPRING_CRONJOB_ID_KEY));
-				scheduleInfo.setScheduleProperties(properties);
+	private boolean isScheduleCacheSynced() {
+		return this.schedulerProperties.getScheduleCache().isEnabled() && getScheduleCache().isSynced();
+	}
 
-				scheduleInfos.add(scheduleInfo);
-			}
+	private synchronized ResourceCache<CronJob, ScheduleInfo> getScheduleCache() {
+		if (this.scheduleCache == null) {
+			this.scheduleCache = new ResourceCache<>("schedules",
+					this.client.batch().cronjobs().withLabel(SPRING_CRONJOB_ID_KEY), SPRING_CRONJOB_ID_KEY,
+					KubernetesScheduler::buildScheduleInfo,
+					TimeUnit.SECONDS.toMillis(this.schedulerProperties.getScheduleCache().getResyncPeriod()));
+			this.scheduleCache.start();
 		}
+		return this.scheduleCache;
+	}
 
-		return scheduleInfos;
+	private Stream<ScheduleInfo> streamScheduleInfos(
+			FilterWatchListDeletable<CronJob, CronJobList, Boolean, Watch> cronJobs) {
+		return ResourcePages.stream(cronJobs::list, this.schedulerProperties.getListPageSize())
+				.filter(cronJob -> cronJob.getMetadata().getLabels() != null &&
+						StringUtils.hasText(cronJob.getMetadata().getLabels().get(SPRING_CRONJOB_ID_KEY)))
+				.map(KubernetesScheduler::buildScheduleInfo);
+	}
+
+	private static ScheduleInfo buildScheduleInfo(CronJob cronJob) {
+		Map<String, String> properties = new HashMap<>();
+		properties.put(SchedulerPropertyKeys.CRON_EXPRESSION, cronJob.getSpec().getSchedule());
+
+		ScheduleInfo scheduleInfo = new ScheduleInfo();
+		scheduleInfo.setScheduleName(cronJob.getMetadata().getName());
+		scheduleInfo.setTaskDefinitionName(cronJob.getMetadata().getLabels().get(SPRING_CRONJOB_ID_KEY));
+		scheduleInfo.setScheduleProperties(properties);
+		return scheduleInfo;
 	}
 
 	protected CronJob createCronJob(ScheduleRequest scheduleRequest) {
+		CronJob created = this.client.batch().cronjobs().create(buildCronJob(scheduleRequest));
+		if (this.scheduleCache != null) {
+			this.scheduleCache.update(created);
+		}
+		return created;
+	}
+
+	/**
+	 * Build the CronJob of a schedule request, stamped with the hash of its labels, annotations and spec.
+	 *
+	 * @param scheduleRequest the schedule request
+	 * @return the CronJob
+	 */
+	protected CronJob buildCronJob(ScheduleRequest scheduleRequest) {
 		Map<String, String> labels = Collections.singletonMap(SPRING_CRONJOB_ID_KEY,
 				scheduleRequest.getDefinition().getName());
 
 		Map<String, String> schedulerProperties = scheduleRequest.getSchedulerProperties();
 		String schedule = schedulerProperties.get(SchedulerPropertyKeys.CRON_EXPRESSION);
 		Assert.hasText(schedule, "The property: " + SchedulerPropertyKeys.CRON_EXPRESSION + " must be defined");
+		String spreadSchedule = spreadSchedule(schedule, scheduleRequest.getScheduleName(),
+				getScheduleSpreadWindow(schedulerProperties));
 
 		PodSpec podSpec = createPodSpec(scheduleRequest);
 		String taskServiceAccountName = this.deploymentPropertiesResolver.getTaskServiceAccountName(scheduleRequest.getSchedulerProperties());
@@ -182,13 +405,75 @@ public class KubernetesScheduler extends AbstractKubernetesDeployer implements S
 
 		CronJob cronJob = new CronJobBuilder().withNewMetadata().withName(scheduleRequest.getScheduleName())
 				.withLabels(labels).withAnnotations(this.deploymentPropertiesResolver.getJobAnnotations(schedulerProperties)).endMetadata()
-				.withNewSpec().withSchedule(schedule).withNewJobTemplate()
+				.withNewSpec().withSchedule(spreadSchedule).withNewJobTemplate()
 				.withNewSpec().withNewTemplate().withSpec(podSpec).endTemplate().endSpec()
 				.endJobTemplate().endSpec().build();
 
 		setImagePullSecret(scheduleRequest, cronJob);
 
-		return this.client.batch().cronjobs().create(cronJob);
+		Map<String, String> annotations = new HashMap<>(cronJob.getMetadata().getAnnotations());
+		if (!spreadSchedule.equals(schedule)) {
+			annotations.put(REQUESTED_SCHEDULE_ANNOTATION, schedule);
+		}
+		cronJob.getMetadata().setAnnotations(annotations);
+		annotations.put(SPEC_HASH_ANNOTATION, computeSpecHash(cronJob));
+		return cronJob;
+	}
+
+	private int getScheduleSpreadWindow(Map<String, String> schedulerProperties) {
+		String scheduleSpreadWindow = PropertyParserUtils.getDeploymentPropertyValue(schedulerProperties,
+				SCHEDULE_SPREAD_WINDOW_PROPERTY);
+		return StringUtils.hasText(scheduleSpreadWindow) ? Integer.parseInt(scheduleSpreadWindow) :
+				this.schedulerProperties.getScheduleSpreadWindow();
+	}
+
+	/**
+	 * Move the minute of a cron expression that fires at a fixed minute later by an offset within the window,
+	 * derived from a hash of the schedule name. The offset never moves the minute past the end of the hour,
+	 * so a schedule keeps firing in the hour it asked for. Expressions with a wildcard, step, range or list in
+	 * the minute field are returned unchanged, as are all expressions when the window is {@code 0}.
+	 *
+	 * @param schedule the cron expression
+	 * @param scheduleName the name of the schedule
+	 * @param window the spread window in minutes
+	 * @return the cron expression to use
+	 */
+	static String spreadSchedule(String schedule, String scheduleName, int window) {
+		if (window <= 0) {
+			return schedule;
+		}
+		String expression = CRON_MACROS.getOrDefault(schedule.trim(), schedule.trim());
+		String[] fields = expression.split("\\s+");
+		if (fields.length != 5 || !fields[0].matches("\\d{1,2}")) {
+			return schedule;
+		}
+		int minute = Integer.parseInt(fields[0]);
+		int range = Math.min(window, 60 - minute);
+		if (minute > 59 || range <= 1) {
+			return schedule;
+		}
+		fields[0] = String.valueOf(minute + Math.floorMod(scheduleName.hashCode(), range));
+		return String.join(" ", fields);
+	}
+
+	/**
+	 * Hash the labels, annotations and spec of a CronJob, ignoring the spec hash annotation itself. Map
+	 * entries are hashed in key order, so the hash only depends on the content.
+	 */
+	static String computeSpecHash(CronJob cronJob) {
+		Map<String, String> annotations = new TreeMap<>(cronJob.getMetadata().getAnnotations());
+		annotations.remove(SPEC_HASH_ANNOTATION);
+		Map<String, Object> content = new LinkedHashMap<>();
+		content.put("labels", cronJob.getMetadata().getLabels());
+		content.put("annotations", annotations);
+		content.put("spec", cronJob.getSpec());
+		try {
+			return DigestUtils.md5DigestAsHex(SPEC_HASH_MAPPER.writeValueAsBytes(content));
+		}
+		catch (JsonProcessingException e) {
+			throw new IllegalStateException("Unable to hash the spec of CronJob " +
+					cronJob.getMetadata().getName(), e);
+		}
 	}
 
 	protected String getExceptionMessageForField(KubernetesClientException clientException,
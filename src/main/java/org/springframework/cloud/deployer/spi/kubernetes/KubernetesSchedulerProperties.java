@@ -46,6 +46,28 @@ public class KubernetesSchedulerProperties extends KubernetesDeployerProperties
 	 */
 	private String taskServiceAccountName = DEFAULT_TASK_SERVICE_ACCOUNT_NAME;
 
+	/**
+	 * The maximum number of CronJobs fetched per request when listing schedules.
+	 */
+	private int listPageSize = 500;
+
+	/**
+	 * The maximum number of CronJob creates or deletes issued concurrently by batch schedule and unschedule.
+	 */
+	private int batchParallelism = 8;
+
+	/**
+	 * The window in minutes over which schedules firing at a fixed minute are spread. The minute of each
+	 * schedule is moved later by an offset derived from a hash of the schedule name, so the offset is stable
+	 * across re-schedules. A value of 0 disables spreading.
+	 */
+	private int scheduleSpreadWindow = 0;
+
+	/**
+	 * The watch-driven schedule cache settings.
+	 */
+	private ScheduleCache scheduleCache = new ScheduleCache();
+
 	/**
 	 * Obtains the {@link RestartPolicy} to use. Defaults to
 	 * {@link KubernetesSchedulerProperties#restartPolicy}.
@@ -82,4 +104,109 @@ public class KubernetesSchedulerProperties extends KubernetesDeployerProperties
 	public void setTaskServiceAccountName(String taskServiceAccountName) {
 		this.taskServiceAccountName = taskServiceAccountName;
 	}
+
+	/**
+	 * Obtains the maximum number of CronJobs fetched per request when listing schedules.
+	 *
+	 * @return the list page size
+	 */
+	public int getListPageSize() {
+		return listPageSize;
+	}
+
+	/**
+	 * Sets the maximum number of CronJobs fetched per request when listing schedules.
+	 *
+	 * @param listPageSize the list page size
+	 */
+	public void setListPageSize(int listPageSize) {
+		this.listPageSize = listPageSize;
+	}
+
+	/**
+	 * Obtains the maximum number of CronJob creates or deletes issued concurrently by batch schedule and
+	 * unschedule.
+	 *
+	 * @return the batch parallelism
+	 */
+	public int getBatchParallelism() {
+		return batchParallelism;
+	}
+
+	/**
+	 * Sets the maximum number of CronJob creates or deletes issued concurrently by batch schedule and
+	 * unschedule.
+	 *
+	 * @param batchParallelism the batch parallelism
+	 */
+	public void setBatchParallelism(int batchParallelism) {
+		this.batchParallelism = batchParallelism;
+	}
+
+	/**
+	 * Obtains the window in minutes over which schedules firing at a fixed minute are spread.
+	 *
+	 * @return the schedule spread window, {@code 0} if spreading is disabled
+	 */
+	public int getScheduleSpreadWindow() {
+		return scheduleSpreadWindow;
+	}
+
+	/**
+	 * Sets the window in minutes over which schedules firing at a fixed minute are spread.
+	 *
+	 * @param scheduleSpreadWindow the schedule spread window, {@code 0} to disable spreading
+	 */
+	public void setScheduleSpreadWindow(int scheduleSpreadWindow) {
+		this.scheduleSpreadWindow = scheduleSpreadWindow;
+	}
+
+	/**
+	 * Obtains the watch-driven schedule cache settings.
+	 *
+	 * @return the schedule cache settings
+	 */
+	public ScheduleCache getScheduleCache() {
+		return scheduleCache;
+	}
+
+	/**
+	 * Sets the watch-driven schedule cache settings.
+	 *
+	 * @param scheduleCache the schedule cache settings
+	 */
+	public void setScheduleCache(ScheduleCache scheduleCache) {
+		this.scheduleCache = scheduleCache;
+	}
+
+	public static class ScheduleCache {
+
+		/**
+		 * Whether schedule CronJobs are tracked by a watch-driven cache, indexed by schedule name and task
+		 * definition name, so that listing schedules and checking that a schedule exists do not call the API
+		 * server.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Time in seconds between full resyncs of the cache. A value of 0 disables resync.
+		 */
+		private int resyncPeriod = 300;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getResyncPeriod() {
+			return resyncPeriod;
+		}
+
+		public void setResyncPeriod(int resyncPeriod) {
+			this.resyncPeriod = resyncPeriod;
+		}
+	}
 }
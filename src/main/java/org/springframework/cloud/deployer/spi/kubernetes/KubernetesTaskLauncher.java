@@ -22,8 +22,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
+import io.fabric8.kubernetes.api.model.DeletionPropagation;
+import io.fabric8.kubernetes.api.model.EnvVarBuilder;
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.KubernetesResourceList;
 import io.fabric8.kubernetes.api.model.ObjectMeta;
@@ -34,6 +42,7 @@ import io.fabric8.kubernetes.api.model.PodSpec;
 import io.fabric8.kubernetes.api.model.PodStatus;
 import io.fabric8.kubernetes.api.model.PodTemplateSpec;
 import io.fabric8.kubernetes.api.model.batch.Job;
+import io.fabric8.kubernetes.api.model.batch.JobBuilder;
 import io.fabric8.kubernetes.api.model.batch.JobList;
 import io.fabric8.kubernetes.api.model.batch.JobSpec;
 import io.fabric8.kubernetes.api.model.batch.JobSpecBuilder;
@@ -44,8 +53,8 @@ import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher;
 import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
 import io.fabric8.kubernetes.client.dsl.PodResource;
-import org.hashids.Hashids;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.deployer.spi.core.AppDeploymentRequest;
 import org.springframework.cloud.deployer.spi.core.RuntimeEnvironmentInfo;
@@ -53,6 +62,7 @@ import org.springframework.cloud.deployer.spi.kubernetes.support.PropertyParserU
 import org.springframework.cloud.deployer.spi.task.LaunchState;
 import org.springframework.cloud.deployer.spi.task.TaskLauncher;
 import org.springframework.cloud.deployer.spi.task.TaskStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
@@ -66,9 +76,39 @@ import org.springframework.util.StringUtils;
  * @author Chris Schaefer
  * @author Ilayaperumal Gopinathan
  */
-public class KubernetesTaskLauncher extends AbstractKubernetesDeployer implements TaskLauncher {
+public class KubernetesTaskLauncher extends AbstractKubernetesDeployer implements TaskLauncher, DisposableBean {
+	private static final String QUOTA_GROUP_KEY = "task-quota-group";
+
+	private static final String COMPLETION_INDEX_ANNOTATION = "batch.kubernetes.io/job-completion-index";
+
+	private static final long DELETION_CHECK_INTERVAL = 1000L;
+
 	private KubernetesTaskLauncherProperties taskLauncherProperties;
 
+	private final StatusCoalescer<TaskStatus> statusCoalescer;
+
+	private final RunningTaskCounter runningTaskCounter = new RunningTaskCounter(this::signalAdmissionQueue);
+
+	private final TaskAdmissionQueue admissionQueue;
+
+	private ResourceCache<Pod, LaunchState> taskPodCache;
+
+	private ResourceCache<Job, TaskStatus> taskJobCache;
+
+	private final TaskIdGenerator taskIdGenerator;
+
+	private final TaskPodReaper taskPodReaper;
+
+	private final TaskCompletionTracker completionTracker = new TaskCompletionTracker();
+
+	private final TaskCompletionTracker deletionTracker = new TaskCompletionTracker(true);
+
+	private final DistributedTaskPermits taskPermits;
+
+	private final TaskQuotas taskQuotas = new TaskQuotas(this::getTaskStates, id -> buildTaskStatus(id).getState());
+
+	private ExecutorService launchExecutor;
+
 	@Autowired
 	public KubernetesTaskLauncher(KubernetesDeployerProperties properties,
 			KubernetesClient client) {
@@ -97,17 +137,107 @@ public class KubernetesTaskLauncher extends AbstractKubernetesDeployer implement
 		this.containerFactory = containerFactory;
 		this.deploymentPropertiesResolver = new DeploymentPropertiesResolver(
 				KubernetesDeployerProperties.KUBERNETES_DEPLOYER_PROPERTIES_PREFIX, properties);
+		this.statusCoalescer = new StatusCoalescer<>(properties.getStatusCoalescing().isEnabled(),
+				properties.getStatusCoalescing().getTtl());
+		this.taskIdGenerator = taskLauncherProperties.getTaskIdNodeId() != null ?
+				new TaskIdGenerator(taskLauncherProperties.getTaskIdNodeId(), System::currentTimeMillis) :
+				new TaskIdGenerator();
+		KubernetesTaskLauncherProperties.AdmissionQueue admissionQueueProperties =
+				taskLauncherProperties.getAdmissionQueue();
+		this.admissionQueue = admissionQueueProperties.isEnabled() ?
+				new TaskAdmissionQueue(admissionQueueProperties.getCapacity(),
+						admissionQueueProperties.getPollInterval(), this::getMaximumConcurrentTasks,
+						this::getOccupiedTaskSlotCount, taskLauncherProperties.getDistributedPermits().isEnabled(),
+						this::getPodLaunchState, this::launchAdmitted,
+						request -> this.taskQuotas.getExhausted(getTaskQuotas(request)) != null,
+						this.completionTracker::fail) :
+				null;
+		KubernetesTaskLauncherProperties.DistributedPermits permitsProperties =
+				taskLauncherProperties.getDistributedPermits();
+		this.taskPermits = permitsProperties.isEnabled() ?
+				new DistributedTaskPermits(client, permitsProperties.getConfigMapName(),
+						this::getMaximumConcurrentTasks,
+						TimeUnit.SECONDS.toMillis(permitsProperties.getLeaseDuration()),
+						TimeUnit.SECONDS.toMillis(permitsProperties.getRenewInterval()), UUID.randomUUID().toString(),
+						id -> buildTaskStatus(id).getState()) :
+				null;
+		KubernetesTaskLauncherProperties.Reaper reaperProperties = taskLauncherProperties.getReaper();
+		// the pods of Jobs are deleted with their Job by ttlSecondsAfterFinished; the reaper of bare pods is
+		// started by the first launch
+		if (reaperProperties.isEnabled() && !properties.isCreateJob()) {
+			this.taskPodReaper = new TaskPodReaper(client, TimeUnit.SECONDS.toMillis(reaperProperties.getRetention()),
+					TimeUnit.SECONDS.toMillis(reaperProperties.getSweepInterval()), reaperProperties.getBatchSize(),
+					reaperProperties.getDeleteRequestsPerSecond());
+		}
+		else {
+			this.taskPodReaper = null;
+		}
 	}
 
 	@Override
 	public String launch(AppDeploymentRequest request) {
 		String appId = createDeploymentId(request);
-		TaskStatus status = status(appId);
+		admit(appId, request);
+		return appId;
+	}
+
+	/**
+	 * Launch a task without waiting for it. The launch is carried out in the background, and the returned future
+	 * completes when the Pod or Job of the task reaches a terminal state, as seen by a shared watch of the task
+	 * resources, so no thread or API call is spent per task while it runs.
+	 *
+	 * @param request the launch request
+	 * @return the id of the task and the future of its final status
+	 */
+	public AsyncTaskLaunch launchAsync(AppDeploymentRequest request) {
+		String appId = createDeploymentId(request);
+		CompletableFuture<TaskStatus> completion = this.completionTracker.track(appId);
+		getLaunchExecutor().execute(() -> {
+			try {
+				// the first start lists all task resources, so it is kept off the caller's thread
+				startCompletionCache();
+				admit(appId, request);
+			}
+			catch (RuntimeException e) {
+				this.completionTracker.fail(appId, e);
+			}
+		});
+		return new AsyncTaskLaunch(appId, completion);
+	}
+
+	/**
+	 * Launch a task with a generated id, or queue its launch if the admission queue is enabled and the maximum
+	 * number of concurrent tasks, or a quota of the task, is reached.
+	 */
+	private void admit(String appId, AppDeploymentRequest request) {
+		TaskStatus status = buildTaskStatus(appId);
 
 		if (!status.getState().equals(LaunchState.unknown)) {
 			throw new IllegalStateException("Task " + appId + " already exists with a state of " + status);
 		}
 
+		TaskQuotas.Quota exhaustedQuota = this.taskQuotas.getExhausted(getTaskQuotas(request));
+		if (exhaustedQuota != null) {
+			this.taskQuotas.recordRejection();
+		}
+		if (this.admissionQueue != null && (this.admissionQueue.getDepth() > 0 || maxConcurrentExecutionsReached()
+				|| exhaustedQuota != null)) {
+			// queue behind launches that are already waiting, so that they are released in order
+			if (!this.admissionQueue.offer(appId, request, getLaunchPriority(request))) {
+				throw new IllegalStateException(
+					String.format("Cannot launch task %s. The %s and the admission queue is full.",
+						request.getDefinition().getName(), exhaustedQuota != null ? exhaustedQuota :
+								getMaximumConcurrentTasksLimitMessage())
+				);
+			}
+			logger.debug(exhaustedQuota != null ?
+					String.format("Queued launch of task: %s, the %s", appId, exhaustedQuota) :
+					String.format("Queued launch of task: %s", appId));
+			this.statusCoalescer.invalidate(appId);
+			this.admissionQueue.signal();
+			return;
+		}
+
 		if (this.maxConcurrentExecutionsReached()) {
 			throw new IllegalStateException(
 				String.format("Cannot launch task %s. The maximum concurrent task executions is at its limit [%d].",
@@ -115,25 +245,233 @@ public class KubernetesTaskLauncher extends AbstractKubernetesDeployer implement
 			);
 		}
 
+		if (exhaustedQuota != null) {
+			throw new IllegalStateException(
+				String.format("Cannot launch task %s. The %s.", request.getDefinition().getName(), exhaustedQuota));
+		}
+
 		logPossibleDownloadResourceMessage(request.getResource());
 		try {
 			launch(appId, request);
-			return appId;
 		} catch (RuntimeException e) {
 			logger.error(e.getMessage(), e);
 			throw e;
+		} finally {
+			this.statusCoalescer.invalidate(appId);
+		}
+	}
+
+	/**
+	 * Launch a batch of tasks. The concurrency limit is checked once for the whole batch rather than once per
+	 * task, and the pod specs are built and the Pods or Jobs created concurrently over the shared client, at most
+	 * {@link KubernetesTaskLauncherProperties#getBatchLaunchParallelism()} at a time. Requests beyond the
+	 * available capacity are queued when the admission queue is enabled, and fail otherwise.
+	 *
+	 * @param requests the launch requests
+	 * @return one result per request, in order, holding the task id and the error if the launch failed
+	 */
+	public List<BatchResult> launch(List<AppDeploymentRequest> requests) {
+		List<String> appIds = createDeploymentIds(requests);
+		List<BatchResult> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+		List<Integer> admitted = new ArrayList<>();
+		boolean queued = false;
+
+		// launches already waiting in the admission queue go first
+		int available = this.admissionQueue != null && this.admissionQueue.getDepth() > 0 ? 0 :
+				this.getMaximumConcurrentTasks() - this.getOccupiedTaskSlotCount();
+		for (int i = 0; i < requests.size(); i++) {
+			String appId = appIds.get(i);
+			AppDeploymentRequest request = requests.get(i);
+			// the quotas are taken up front, as the launches of the batch run concurrently
+			TaskQuotas.Quota exhaustedQuota = available > 0 ?
+					this.taskQuotas.tryAcquire(appId, getTaskQuotas(request)) : null;
+			if (available > 0 && exhaustedQuota == null) {
+				admitted.add(i);
+				available--;
+			}
+			else if (this.admissionQueue != null
+					&& this.admissionQueue.offer(appId, request, getLaunchPriority(request))) {
+				logger.debug(String.format("Queued launch of task: %s", appId));
+				results.set(i, BatchResult.success(appId));
+				queued = true;
+			}
+			else {
+				results.set(i, BatchResult.failure(appId, new IllegalStateException(
+					String.format("Cannot launch task %s. The %s%s.",
+						request.getDefinition().getName(), exhaustedQuota != null ? exhaustedQuota :
+								getMaximumConcurrentTasksLimitMessage(),
+						this.admissionQueue != null ? " and the admission queue is full" : ""))));
+			}
+		}
+
+		List<BatchResult> launched = ParallelBatch.run("task-launch", admitted,
+				this.taskLauncherProperties.getBatchLaunchParallelism(), i -> {
+					String appId = appIds.get(i);
+					AppDeploymentRequest request = requests.get(i);
+					logPossibleDownloadResourceMessage(request.getResource());
+					try {
+						launch(appId, request);
+						return BatchResult.success(appId);
+					}
+					catch (RuntimeException e) {
+						logger.error(e.getMessage(), e);
+						return BatchResult.failure(appId, e);
+					}
+					finally {
+						this.statusCoalescer.invalidate(appId);
+					}
+				});
+		for (int i = 0; i < admitted.size(); i++) {
+			results.set(admitted.get(i), launched.get(i));
+		}
+		if (queued) {
+			this.admissionQueue.signal();
 		}
+		return results;
 	}
 
 	@Override
 	public void cancel(String id) {
 		logger.debug(String.format("Cancelling task: %s", id));
+		if (this.taskLauncherProperties.getCancellation().isFast()) {
+			if (!removeQueuedLaunch(id)) {
+				deleteTask(id);
+			}
+			return;
+		}
 		//ToDo: what does cancel mean? Kubernetes doesn't have stop - just cleanup
 		cleanup(id);
 	}
 
+	/**
+	 * Cancel a task without waiting for it to stop. A single delete of the Pod or Job of the task is sent by name,
+	 * without listing it first, with the grace period of
+	 * {@link KubernetesTaskLauncherProperties.Cancellation#getGracePeriod()} and background propagation, so that
+	 * the pods of a Job are removed by the garbage collector after the call returns.
+	 *
+	 * @param id the task id
+	 * @return the future of the cancelled status of the task, completed once its Pod or Job is gone, as seen by a
+	 * shared watch of the task resources, or by direct lookups while that watch is not in sync; completed
+	 * exceptionally if the deletion cannot be confirmed within the grace period
+	 */
+	public CompletableFuture<TaskStatus> cancelAsync(String id) {
+		if (removeQueuedLaunch(id)) {
+			return CompletableFuture.completedFuture(new TaskStatus(id, LaunchState.cancelled, new HashMap<>()));
+		}
+		CompletableFuture<TaskStatus> deletion = this.deletionTracker.track(id);
+		boolean deleted;
+		try {
+			deleted = deleteTask(id);
+		}
+		catch (RuntimeException e) {
+			this.deletionTracker.fail(id, e);
+			throw e;
+		}
+		if (deleted) {
+			// the watch that completes the future is started off the caller thread, as its first list of the
+			// task resources would otherwise hold up the cancel
+			getLaunchExecutor().execute(() -> confirmDeletion(id, deletion));
+		}
+		else {
+			this.deletionTracker.complete(id, LaunchState.unknown);
+		}
+		return deletion;
+	}
+
+	/**
+	 * Complete the future of a cancelled task once its Pod or Job is gone. While the completion cache is in sync
+	 * its watch reports the deletion; otherwise the Pod or Job is looked up directly until it is gone or the grace
+	 * period has passed, as a deletion that happened before the watch opened is never reported by it.
+	 */
+	private void confirmDeletion(String id, CompletableFuture<TaskStatus> deletion) {
+		ResourceCache<?, ?> cache = startCompletionCache();
+		long deadline = System.currentTimeMillis() + DELETION_CHECK_INTERVAL
+				+ TimeUnit.SECONDS.toMillis(this.taskLauncherProperties.getCancellation().getGracePeriod());
+		while (!deletion.isDone()) {
+			try {
+				if (cache.isSynced()) {
+					if (cache.getByName(id) == null) {
+						this.deletionTracker.complete(id, LaunchState.cancelled);
+					}
+					return;
+				}
+				boolean exists = properties.isCreateJob() ? client.batch().jobs().withName(id).get() != null :
+						client.pods().withName(id).get() != null;
+				if (!exists) {
+					this.deletionTracker.complete(id, LaunchState.cancelled);
+					return;
+				}
+				if (System.currentTimeMillis() >= deadline) {
+					this.deletionTracker.fail(id, new IllegalStateException(
+							String.format("Could not confirm the deletion of task %s", id)));
+					return;
+				}
+				Thread.sleep(DELETION_CHECK_INTERVAL);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (RuntimeException e) {
+				this.deletionTracker.fail(id, e);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Send a single delete of the Pod or Job of a task, and give back its permit and quotas.
+	 *
+	 * @return whether the Pod or Job existed
+	 */
+	private boolean deleteTask(String id) {
+		long gracePeriod = this.taskLauncherProperties.getCancellation().getGracePeriod();
+		boolean deleted;
+		try {
+			if (properties.isCreateJob()) {
+				deleted = client.batch().jobs().withName(id).withPropagationPolicy(DeletionPropagation.BACKGROUND)
+						.withGracePeriod(gracePeriod).delete();
+			}
+			else {
+				deleted = client.pods().withName(id).withPropagationPolicy(DeletionPropagation.BACKGROUND)
+						.withGracePeriod(gracePeriod).delete();
+			}
+		}
+		catch (RuntimeException e) {
+			logger.error(e.getMessage(), e);
+			throw e;
+		}
+		finally {
+			this.statusCoalescer.invalidate(id);
+		}
+		logger.debug(String.format("Sent delete for task: %s - %b", id, deleted));
+		if (this.taskPermits != null) {
+			this.taskPermits.release(id);
+		}
+		this.taskQuotas.release(id);
+		return deleted;
+	}
+
+	/**
+	 * Remove the launch of a task from the admission queue, if it is queued.
+	 *
+	 * @return whether the launch was queued
+	 */
+	private boolean removeQueuedLaunch(String id) {
+		if (this.admissionQueue != null && this.admissionQueue.remove(id)) {
+			logger.debug(String.format("Removed queued launch of task: %s", id));
+			this.statusCoalescer.invalidate(id);
+			this.completionTracker.complete(id, LaunchState.cancelled);
+			return true;
+		}
+		return false;
+	}
+
 	@Override
 	public void cleanup(String id) {
+		if (removeQueuedLaunch(id)) {
+			return;
+		}
 		try {
 			if (properties.isCreateJob()) {
 				deleteJob(id);
@@ -143,7 +481,13 @@ public class KubernetesTaskLauncher extends AbstractKubernetesDeployer implement
 		} catch (RuntimeException e) {
 			logger.error(e.getMessage(), e);
 			throw e;
+		} finally {
+			this.statusCoalescer.invalidate(id);
 		}
+		if (this.taskPermits != null) {
+			this.taskPermits.release(id);
+		}
+		this.taskQuotas.release(id);
 	}
 
 	@Override
@@ -158,21 +502,45 @@ public class KubernetesTaskLauncher extends AbstractKubernetesDeployer implement
 		return super.createRuntimeEnvironmentInfo(TaskLauncher.class, this.getClass());
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * When status coalescing is enabled, concurrent calls for the same task share one computation, and the
+	 * result is reused for the configured time-to-live.
+	 */
 	@Override
 	public TaskStatus status(String id) {
-		TaskStatus status = buildTaskStatus(id);
+		TaskStatus status = this.statusCoalescer.get(id, this::buildTaskStatus);
 		logger.debug(String.format("Status for task: %s is %s", id, status));
 
 		return status;
 	}
 
+	/**
+	 * Get the statistics of the status coalescing layer.
+	 *
+	 * @return the status coalescer
+	 */
+	public StatusCoalescer<TaskStatus> getStatusCoalescer() {
+		return this.statusCoalescer;
+	}
+
 	@Override
 	public int getMaximumConcurrentTasks() {
 		return this.properties.getMaximumConcurrentTasks();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * When the task cache is enabled and in sync, the count is maintained from a pod watch and read without
+	 * calling the API server. Otherwise the task pods are listed.
+	 */
 	@Override
 	public int getRunningTaskExecutionCount() {
+		if (isTaskCacheSynced()) {
+			return this.runningTaskCounter.get();
+		}
 		List<String> taskIds = getIdsForTasks(Optional.empty(), false);
 		AtomicInteger executionCount = new AtomicInteger();
 
@@ -210,25 +578,372 @@ public class KubernetesTaskLauncher extends AbstractKubernetesDeployer implement
 		}
 	}
 
+	/**
+	 * Stream the logs of a task to a consumer, line by line, each line prefixed with the name of its pod.
+	 * Unlike {@link #getLog(String)}, the pods are read concurrently and the logs are never held in memory as a
+	 * whole.
+	 *
+	 * @param id the task id
+	 * @param follow whether to keep streaming new log lines until the stream is closed or the task stops
+	 * @param lineConsumer the consumer of the log lines
+	 * @return the log stream, to be closed to stop streaming
+	 */
+	public PodLogStream streamLog(String id, boolean follow, Consumer<String> lineConsumer) {
+		List<Pod> pods = client.pods().withLabel(SPRING_APP_KEY, id).list().getItems();
+		return streamPodLogs(pods, follow, lineConsumer);
+	}
+
+	/**
+	 * Stop the task caches, if they were started, and fail the futures of asynchronous launches that have not
+	 * completed.
+	 */
+	@Override
+	public synchronized void destroy() {
+		if (this.taskPodCache != null) {
+			this.taskPodCache.stop();
+		}
+		if (this.taskJobCache != null) {
+			this.taskJobCache.stop();
+		}
+		if (this.taskPodReaper != null) {
+			this.taskPodReaper.stop();
+		}
+		if (this.launchExecutor != null) {
+			this.launchExecutor.shutdownNow();
+		}
+		if (this.taskPermits != null) {
+			this.taskPermits.stop();
+		}
+		this.completionTracker.failAll(new IllegalStateException("The task launcher was destroyed"));
+		this.deletionTracker.failAll(new IllegalStateException("The task launcher was destroyed"));
+		if (this.admissionQueue != null) {
+			this.admissionQueue.stop();
+		}
+	}
+
+	/**
+	 * Get the time since the task cache that serves task status last heard from the API server, either by a
+	 * list or a watch event.
+	 *
+	 * @return the time in milliseconds, or {@code -1} if the cache is not in use
+	 */
+	public long getTaskCacheFreshness() {
+		ResourceCache<?, ?> cache = getStatusCache();
+		return cache != null && cache.getLastUpdateTime() > 0 ?
+				System.currentTimeMillis() - cache.getLastUpdateTime() : -1;
+	}
+
+	/**
+	 * Get the time the last full resync of the task cache that serves task status took.
+	 *
+	 * @return the time in milliseconds, or {@code -1} if the cache is not in use
+	 */
+	public long getTaskCacheResyncLag() {
+		ResourceCache<?, ?> cache = getStatusCache();
+		return cache != null ? cache.getLastResyncDuration() : -1;
+	}
+
+	/**
+	 * @return the number of finished task pods deleted by the reaper
+	 */
+	public long getReapedTaskPodCount() {
+		return this.taskPodReaper != null ? this.taskPodReaper.getReapedCount() : 0;
+	}
+
+	/**
+	 * @return the number of updates of the distributed launch permits retried because of a concurrent update
+	 * by another launcher
+	 */
+	public long getDistributedPermitConflictCount() {
+		return this.taskPermits != null ? this.taskPermits.getConflictCount() : 0;
+	}
+
+	/**
+	 * Get the number of active tasks counted against each task quota, keyed by {@code task-name=<name>} or
+	 * {@code task-quota-group=<group>}, for the quotas used since the launcher started.
+	 *
+	 * @return the number of tasks per quota
+	 */
+	public Map<String, Integer> getTaskQuotaUsage() {
+		return this.taskQuotas.getUsage();
+	}
+
+	/**
+	 * Get the limit of each task quota, keyed as in {@link #getTaskQuotaUsage()}.
+	 *
+	 * @return the limit per quota
+	 */
+	public Map<String, Integer> getTaskQuotaLimits() {
+		return this.taskQuotas.getLimits();
+	}
+
+	/**
+	 * @return the number of launches refused or queued because a task quota was at its limit
+	 */
+	public long getTaskQuotaRejectionCount() {
+		return this.taskQuotas.getRejectionCount();
+	}
+
+	/**
+	 * @return the number of launches waiting in the admission queue
+	 */
+	public int getAdmissionQueueDepth() {
+		return this.admissionQueue != null ? this.admissionQueue.getDepth() : 0;
+	}
+
+	/**
+	 * @return the average time in milliseconds launches waited in the admission queue
+	 */
+	public long getAdmissionQueueAverageWaitTime() {
+		return this.admissionQueue != null ? this.admissionQueue.getAverageWaitTime() : 0;
+	}
+
+	/**
+	 * @return the longest time in milliseconds a launch waited in the admission queue
+	 */
+	public long getAdmissionQueueMaxWaitTime() {
+		return this.admissionQueue != null ? this.admissionQueue.getMaxWaitTime() : 0;
+	}
+
+	private void signalAdmissionQueue() {
+		if (this.admissionQueue != null) {
+			this.admissionQueue.signal();
+		}
+	}
+
+	private boolean launchAdmitted(String appId, AppDeploymentRequest request) {
+		if (this.taskQuotas.tryAcquire(appId, getTaskQuotas(request)) != null) {
+			return false;
+		}
+		if (this.taskPermits != null && !this.taskPermits.tryAcquire(appId)) {
+			this.taskQuotas.release(appId);
+			return false;
+		}
+		logger.debug(String.format("Launching queued task: %s", appId));
+		try {
+			launch(appId, request);
+			return true;
+		}
+		finally {
+			this.statusCoalescer.invalidate(appId);
+		}
+	}
+
+	/**
+	 * Get the state of the pod of a task, from the task cache if it is in sync.
+	 */
+	private LaunchState getPodLaunchState(String id) {
+		if (isTaskCacheSynced()) {
+			List<LaunchState> states = this.taskPodCache.get(id);
+			return states.isEmpty() ? LaunchState.unknown : states.get(0);
+		}
+		List<Pod> pods = client.pods().withLabel(SPRING_APP_KEY, id).list().getItems();
+		return pods.isEmpty() ? LaunchState.unknown : getLaunchState(pods.get(0));
+	}
+
+	/**
+	 * Determine whether the watch-driven task Job cache can be used, starting it on first use when it is
+	 * enabled.
+	 *
+	 * @return {@code true} if the cache is enabled and in sync with the cluster
+	 */
+	private boolean isTaskJobCacheSynced() {
+		return this.taskLauncherProperties.getTaskCache().isEnabled() && getTaskJobCache().isSynced();
+	}
+
+	private synchronized ResourceCache<Job, TaskStatus> getTaskJobCache() {
+		if (this.taskJobCache == null) {
+			this.taskJobCache = new ResourceCache<>("task-jobs", client.batch().jobs().withLabel("task-name"),
+					SPRING_APP_KEY, KubernetesTaskLauncher::buildJobStatus,
+					TimeUnit.SECONDS.toMillis(this.taskLauncherProperties.getTaskCache().getResyncPeriod()));
+			this.taskJobCache.addChangeListener((id, status) -> {
+				LaunchState state = status != null ? status.getState() : null;
+				this.completionTracker.accept(id, state);
+				this.deletionTracker.accept(id, state);
+			});
+			this.taskJobCache.start();
+		}
+		return this.taskJobCache;
+	}
+
+	private synchronized ResourceCache<?, ?> getStatusCache() {
+		return this.properties.isCreateJob() ? this.taskJobCache : this.taskPodCache;
+	}
+
+	/**
+	 * Determine whether the watch-driven task pod cache can be used, starting it on first use when it is
+	 * enabled.
+	 *
+	 * @return {@code true} if the cache is enabled and in sync with the cluster
+	 */
+	private boolean isTaskCacheSynced() {
+		return this.taskLauncherProperties.getTaskCache().isEnabled() && getTaskPodCache().isSynced();
+	}
+
+	private synchronized ResourceCache<Pod, LaunchState> getTaskPodCache() {
+		if (this.taskPodCache == null) {
+			this.taskPodCache = new ResourceCache<>("task-pods", client.pods().withLabel("task-name"),
+					SPRING_APP_KEY, KubernetesTaskLauncher::getLaunchState,
+					TimeUnit.SECONDS.toMillis(this.taskLauncherProperties.getTaskCache().getResyncPeriod()));
+			this.taskPodCache.addEventHandler(this.runningTaskCounter);
+			if (!this.properties.isCreateJob()) {
+				this.taskPodCache.addChangeListener(this.completionTracker);
+				this.taskPodCache.addChangeListener(this.deletionTracker);
+			}
+			this.taskPodCache.start();
+		}
+		return this.taskPodCache;
+	}
+
+	/**
+	 * Start the cache whose watch completes the futures of asynchronous launches and cancels. It is started even
+	 * when the task cache is not enabled, but then only serves that purpose.
+	 *
+	 * @return the started cache
+	 */
+	private ResourceCache<?, ?> startCompletionCache() {
+		return this.properties.isCreateJob() ? getTaskJobCache() : getTaskPodCache();
+	}
+
+	private synchronized ExecutorService getLaunchExecutor() {
+		if (this.launchExecutor == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("task-launch-async-");
+			threadFactory.setDaemon(true);
+			this.launchExecutor = Executors.newFixedThreadPool(
+					Math.max(this.taskLauncherProperties.getBatchLaunchParallelism(), 1), threadFactory);
+		}
+		return this.launchExecutor;
+	}
+
 	private boolean maxConcurrentExecutionsReached() {
-		return this.getRunningTaskExecutionCount() >= this.getMaximumConcurrentTasks();
+		return this.getOccupiedTaskSlotCount() >= this.getMaximumConcurrentTasks();
+	}
+
+	/**
+	 * Get the number of slots in use under the maximum number of concurrent tasks: the number of permits held
+	 * by all launchers when distributed permits are enabled, and the number of running tasks otherwise.
+	 */
+	private int getOccupiedTaskSlotCount() {
+		return this.taskPermits != null ? this.taskPermits.getHeldCount() : this.getRunningTaskExecutionCount();
 	}
 
 	protected String createDeploymentId(AppDeploymentRequest request) {
-		String name = request.getDefinition().getName();
-		Hashids hashids = new Hashids(name, 0, "abcdefghijklmnopqrstuvwxyz1234567890");
-		String hashid = hashids.encode(System.currentTimeMillis());
-		String deploymentId = name + "-" + hashid;
-		// Kubernetes does not allow . in the name and does not allow uppercase in the name
-		return deploymentId.replace('.', '-').toLowerCase();
+		return this.taskIdGenerator.generate(request.getDefinition().getName());
+	}
+
+	/**
+	 * Create the ids for a batch of launches. The existence check of a single launch is skipped, as the
+	 * generated ids are unique.
+	 */
+	private List<String> createDeploymentIds(List<AppDeploymentRequest> requests) {
+		List<String> appIds = new ArrayList<>(requests.size());
+		for (AppDeploymentRequest request : requests) {
+			appIds.add(createDeploymentId(request));
+		}
+		return appIds;
 	}
 
 
+	/**
+	 * Create the Pod or Job of a task, holding its quotas, and a launch permit when distributed permits are
+	 * enabled, while it runs.
+	 */
 	private void launch(String appId, AppDeploymentRequest request) {
+		TaskQuotas.Quota exhaustedQuota = this.taskQuotas.tryAcquire(appId, getTaskQuotas(request));
+		if (exhaustedQuota != null) {
+			throw new IllegalStateException(
+				String.format("Cannot launch task %s. The %s.", request.getDefinition().getName(), exhaustedQuota));
+		}
+		try {
+			if (this.taskPermits != null && !this.taskPermits.tryAcquire(appId)) {
+				throw new IllegalStateException(
+					String.format("Cannot launch task %s. The maximum concurrent task executions is at its limit "
+							+ "[%d] across all task launchers.",
+						request.getDefinition().getName(), this.getMaximumConcurrentTasks())
+				);
+			}
+			createTask(appId, request);
+		}
+		catch (RuntimeException e) {
+			if (this.taskPermits != null) {
+				this.taskPermits.release(appId);
+			}
+			this.taskQuotas.release(appId);
+			throw e;
+		}
+		if (this.taskPodReaper != null) {
+			this.taskPodReaper.start();
+		}
+	}
+
+	/**
+	 * Get the quotas that apply to a launch: the limit of its task name, from the
+	 * {@code spring.cloud.deployer.kubernetes.taskQuota} deployment property or the launcher settings, and the
+	 * limit of its {@code spring.cloud.deployer.kubernetes.quotaGroup}, from the launcher settings.
+	 */
+	private List<TaskQuotas.Quota> getTaskQuotas(AppDeploymentRequest request) {
+		KubernetesTaskLauncherProperties.Quotas quotaProperties = this.taskLauncherProperties.getQuotas();
+		Map<String, String> deploymentProperties = request.getDeploymentProperties();
+		String taskName = request.getDefinition().getName();
+		String taskQuota = PropertyParserUtils.getDeploymentPropertyValue(deploymentProperties,
+				"spring.cloud.deployer.kubernetes.taskQuota");
+		Integer taskNameLimit = StringUtils.hasText(taskQuota) ? Integer.valueOf(taskQuota) :
+				quotaProperties.getTaskNames().get(taskName);
+		String quotaGroup = getQuotaGroup(request);
+		Integer groupLimit = quotaGroup != null ? quotaProperties.getGroups().get(quotaGroup) : null;
+		if (taskNameLimit == null && groupLimit == null) {
+			return Collections.emptyList();
+		}
+		List<TaskQuotas.Quota> quotas = new ArrayList<>(2);
+		if (taskNameLimit != null) {
+			quotas.add(new TaskQuotas.Quota("task-name", taskName, taskNameLimit));
+		}
+		if (groupLimit != null) {
+			quotas.add(new TaskQuotas.Quota(QUOTA_GROUP_KEY, quotaGroup, groupLimit));
+		}
+		return quotas;
+	}
+
+	private String getQuotaGroup(AppDeploymentRequest request) {
+		String quotaGroup = PropertyParserUtils.getDeploymentPropertyValue(request.getDeploymentProperties(),
+				"spring.cloud.deployer.kubernetes.quotaGroup");
+		return StringUtils.hasText(quotaGroup) ? quotaGroup : null;
+	}
+
+	/**
+	 * List the states of the task Pods or Jobs carrying a label, by task id.
+	 */
+	private Map<String, LaunchState> getTaskStates(String label, String value) {
+		Map<String, LaunchState> states = new HashMap<>();
+		if (this.properties.isCreateJob()) {
+			for (Job job : client.batch().jobs().withLabel(label, value).list().getItems()) {
+				states.put(job.getMetadata().getName(), getLaunchState(job));
+			}
+		}
+		else {
+			for (Pod pod : client.pods().withLabel(label, value).list().getItems()) {
+				states.put(pod.getMetadata().getName(), getLaunchState(pod));
+			}
+		}
+		return states;
+	}
+
+	private String getMaximumConcurrentTasksLimitMessage() {
+		return String.format("maximum concurrent task executions is at its limit [%d]",
+				this.getMaximumConcurrentTasks());
+	}
+
+	private void createTask(String appId, AppDeploymentRequest request) {
 		Map<String, String> idMap = createIdMap(appId, request);
 		Map<String, String> podLabelMap = new HashMap<>();
 		podLabelMap.put("task-name", request.getDefinition().getName());
 		podLabelMap.put(SPRING_MARKER_KEY, SPRING_MARKER_VALUE);
+		Map<String, String> quotaLabels = new HashMap<>();
+		String quotaGroup = getQuotaGroup(request);
+		if (quotaGroup != null) {
+			quotaLabels.put(QUOTA_GROUP_KEY, quotaGroup);
+		}
+		podLabelMap.putAll(quotaLabels);
 
 		Map<String, String> deploymentProperties = request.getDeploymentProperties();
 		Map<String, String> deploymentLabels = this.deploymentPropertiesResolver.getDeploymentLabels(deploymentProperties);
@@ -238,6 +953,16 @@ public class KubernetesTaskLauncher extends AbstractKubernetesDeployer implement
 		PodSpec podSpec = createPodSpec(request);
 
 		podSpec.setRestartPolicy(getRestartPolicy(request).name());
+		Integer partitions = getPartitions(request);
+		Assert.isTrue(partitions == null || this.properties.isCreateJob(),
+				"Partitioned tasks are only supported when the JobSpec is used.");
+		if (partitions != null) {
+			// the Job controller sets the completion index of each pod as an annotation
+			podSpec.getContainers().get(0).getEnv().add(new EnvVarBuilder().withName("INSTANCE_INDEX")
+					.withNewValueFrom().withNewFieldRef().withFieldPath(
+							String.format("metadata.annotations['%s']", COMPLETION_INDEX_ANNOTATION))
+					.endFieldRef().endValueFrom().build());
+		}
 		if (this.properties.isCreateJob()) {
 			logger.debug(String.format("Launching Job for task: %s", appId));
 			ObjectMeta objectMeta = new ObjectMetaBuilder()
@@ -251,18 +976,27 @@ public class KubernetesTaskLauncher extends AbstractKubernetesDeployer implement
 			JobSpec jobSpec = new JobSpecBuilder()
 					.withTemplate(podTemplateSpec)
 					.withBackoffLimit(getBackoffLimit(request))
+					.withTtlSecondsAfterFinished(getTtlSecondsAfterFinished())
 					.build();
 
-			this.client.batch().jobs()
-					.createNew()
+			Job job = new JobBuilder()
 					.withNewMetadata()
 					.withName(appId)
 					.withLabels(Collections.singletonMap("task-name", podLabelMap.get("task-name")))
+					.addToLabels(quotaLabels)
 					.addToLabels(idMap)
 					.withAnnotations(this.deploymentPropertiesResolver.getJobAnnotations(deploymentProperties))
 					.endMetadata()
 					.withSpec(jobSpec)
-					.done();
+					.build();
+			if (partitions != null) {
+				job.getSpec().setCompletions(partitions);
+				job.getSpec().setParallelism(getPartitionParallelism(request, partitions));
+				// completionMode is not modelled by this client version, and builders drop additional properties
+				job.getSpec().setAdditionalProperty("completionMode", "Indexed");
+			}
+
+			this.client.batch().jobs().create(job);
 		}
 		else {
 			logger.debug(String.format("Launching Pod for task: %s", appId));
@@ -317,33 +1051,96 @@ public class KubernetesTaskLauncher extends AbstractKubernetesDeployer implement
 	}
 
 	TaskStatus buildTaskStatus(String id) {
+		if (this.admissionQueue != null && this.admissionQueue.contains(id)) {
+			return new TaskStatus(id, LaunchState.launching, new HashMap<>());
+		}
 
 		if(properties.isCreateJob()){
+			// a task missing from the cache may just have been launched, so look it up
+			TaskStatus cachedStatus = isTaskJobCacheSynced() ? this.taskJobCache.getByName(id) : null;
+			if (cachedStatus != null) {
+				return cachedStatus;
+			}
+
 			Job job = getJob(id);
 
 			if (job == null) {
 				return new TaskStatus(id, LaunchState.unknown, new HashMap<>());
 			}
+			return buildJobStatus(job);
 
-			JobStatus jobStatus = job.getStatus();
+		} else {
+			LaunchState cachedState = isTaskCacheSynced() ? this.taskPodCache.getByName(id) : null;
+			if (cachedState != null) {
+				return new TaskStatus(id, cachedState, new HashMap<>());
+			}
+			return buildPodStatus(id);
+		}
+	}
 
-			if (jobStatus == null) {
-				return new TaskStatus(id, LaunchState.unknown, new HashMap<>());
+	/**
+	 * Build the status of a task Job. The pod counts of a partitioned Job, aggregated across its completion
+	 * indexes, are reported as attributes.
+	 */
+	static TaskStatus buildJobStatus(Job job) {
+		Map<String, String> attributes = new HashMap<>();
+		Integer completions = job.getSpec() != null ? job.getSpec().getCompletions() : null;
+		JobStatus jobStatus = job.getStatus();
+		if (completions != null && completions > 1) {
+			attributes.put("job.completions", String.valueOf(completions));
+			if (jobStatus != null) {
+				attributes.put("job.active", String.valueOf(countOf(jobStatus.getActive())));
+				attributes.put("job.succeeded", String.valueOf(countOf(jobStatus.getSucceeded())));
+				attributes.put("job.failed", String.valueOf(countOf(jobStatus.getFailed())));
+				Object completedIndexes = jobStatus.getAdditionalProperties().get("completedIndexes");
+				if (completedIndexes != null) {
+					attributes.put("job.completedIndexes", completedIndexes.toString());
+				}
 			}
+		}
+		return new TaskStatus(job.getMetadata().getName(), getLaunchState(job), attributes);
+	}
 
-			boolean failed = jobStatus.getFailed() != null && jobStatus.getFailed() > 0;
-			boolean succeeded = jobStatus.getSucceeded() != null && jobStatus.getSucceeded() > 0;
-			if (failed) {
-				return new TaskStatus(id, LaunchState.failed, new HashMap<>());
+	/**
+	 * Classify a task Job by its status. A partitioned Job is complete once all its completion indexes have
+	 * succeeded, and failed once the Job controller gives up on it, as single failed pods are retried.
+	 */
+	static LaunchState getLaunchState(Job job) {
+		JobStatus jobStatus = job.getStatus();
+
+		if (jobStatus == null) {
+			return LaunchState.unknown;
+		}
+
+		Integer completions = job.getSpec() != null ? job.getSpec().getCompletions() : null;
+		if (completions != null && completions > 1) {
+			if (hasCondition(jobStatus, "Failed")) {
+				return LaunchState.failed;
 			}
-			if (succeeded) {
-				return new TaskStatus(id, LaunchState.complete, new HashMap<>());
+			if (countOf(jobStatus.getSucceeded()) >= completions || hasCondition(jobStatus, "Complete")) {
+				return LaunchState.complete;
 			}
-			return new TaskStatus(id, LaunchState.launching, new HashMap<>());
+			return LaunchState.launching;
+		}
 
-		} else {
-			return buildPodStatus(id);
+		boolean failed = jobStatus.getFailed() != null && jobStatus.getFailed() > 0;
+		boolean succeeded = jobStatus.getSucceeded() != null && jobStatus.getSucceeded() > 0;
+		if (failed) {
+			return LaunchState.failed;
 		}
+		if (succeeded) {
+			return LaunchState.complete;
+		}
+		return LaunchState.launching;
+	}
+
+	private static boolean hasCondition(JobStatus jobStatus, String type) {
+		return jobStatus.getConditions() != null && jobStatus.getConditions().stream()
+				.anyMatch(condition -> type.equals(condition.getType()) && "True".equals(condition.getStatus()));
+	}
+
+	private static int countOf(Integer count) {
+		return count != null ? count : 0;
 	}
 
 	private TaskStatus buildPodStatus(String id) {
@@ -351,23 +1148,27 @@ public class KubernetesTaskLauncher extends AbstractKubernetesDeployer implement
 		if (pod == null) {
 			return new TaskStatus(id, LaunchState.unknown, new HashMap<>());
 		}
+		return new TaskStatus(id, getLaunchState(pod), new HashMap<>());
+	}
 
+	/**
+	 * Classify a task pod by its phase.
+	 */
+	static LaunchState getLaunchState(Pod pod) {
 		PodStatus podStatus = pod.getStatus();
-		if (podStatus == null) {
-			return new TaskStatus(id, LaunchState.unknown, new HashMap<>());
+		if (podStatus == null || podStatus.getPhase() == null) {
+			return LaunchState.unknown;
 		}
 
-		String phase = podStatus.getPhase();
-
-		switch (phase) {
+		switch (podStatus.getPhase()) {
 		case "Pending":
-			return new TaskStatus(id, LaunchState.launching, new HashMap<>());
+			return LaunchState.launching;
 		case "Failed":
-			return new TaskStatus(id, LaunchState.failed, new HashMap<>());
+			return LaunchState.failed;
 		case "Succeeded":
-			return new TaskStatus(id, LaunchState.complete, new HashMap<>());
+			return LaunchState.complete;
 		default:
-			return new TaskStatus(id, LaunchState.running, new HashMap<>());
+			return LaunchState.running;
 		}
 	}
 
@@ -445,4 +1246,48 @@ public class KubernetesTaskLauncher extends AbstractKubernetesDeployer implement
 			return this.taskLauncherProperties.getBackoffLimit();
 		}
 	}
+
+	/**
+	 * Get the number of partitions of a task for the deployment request. A partitioned task runs as a single
+	 * Indexed Job with one completion per partition.
+	 *
+	 * @param request The deployment request.
+	 * @return the number of partitions, {@code null} if the task is not partitioned
+	 */
+	protected Integer getPartitions(AppDeploymentRequest request) {
+		String partitionsString = PropertyParserUtils.getDeploymentPropertyValue(request.getDeploymentProperties(),
+				"spring.cloud.deployer.kubernetes.partitions");
+		return StringUtils.hasText(partitionsString) ? Integer.valueOf(partitionsString) : null;
+	}
+
+	/**
+	 * Get the number of partitions of a task that run at the same time for the deployment request.
+	 *
+	 * @param request The deployment request.
+	 * @param partitions The number of partitions of the task.
+	 * @return the parallelism, all partitions if not set
+	 */
+	protected Integer getPartitionParallelism(AppDeploymentRequest request, int partitions) {
+		String parallelismString = PropertyParserUtils.getDeploymentPropertyValue(request.getDeploymentProperties(),
+				"spring.cloud.deployer.kubernetes.partitionParallelism");
+		return StringUtils.hasText(parallelismString) ? Integer.valueOf(parallelismString) : partitions;
+	}
+
+	/**
+	 * Get the priority of a launch in the admission queue for the deployment request. Launches with higher
+	 * priorities are released first.
+	 *
+	 * @param request The deployment request.
+	 * @return the launch priority, {@code 0} if not set
+	 */
+	protected int getLaunchPriority(AppDeploymentRequest request) {
+		String launchPriorityString = PropertyParserUtils.getDeploymentPropertyValue(request.getDeploymentProperties(),
+				"spring.cloud.deployer.kubernetes.launchPriority");
+		return StringUtils.hasText(launchPriorityString) ? Integer.parseInt(launchPriorityString) : 0;
+	}
+
+	private Integer getTtlSecondsAfterFinished() {
+		return this.taskLauncherProperties.getReaper().isEnabled() ?
+				this.taskLauncherProperties.getReaper().getRetention() : null;
+	}
 }
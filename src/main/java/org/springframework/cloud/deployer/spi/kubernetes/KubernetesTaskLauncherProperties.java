@@ -16,6 +16,9 @@
 
 package org.springframework.cloud.deployer.spi.kubernetes;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -35,6 +38,48 @@ public class KubernetesTaskLauncherProperties {
 	 */
 	private Integer backoffLimit;
 
+	/**
+	 * The watch-driven task cache settings.
+	 */
+	private TaskCache taskCache = new TaskCache();
+
+	/**
+	 * The launch admission queue settings.
+	 */
+	private AdmissionQueue admissionQueue = new AdmissionQueue();
+
+	/**
+	 * The maximum number of Pod or Job creates issued concurrently by batch and asynchronous launches.
+	 */
+	private int batchLaunchParallelism = 8;
+
+	/**
+	 * The settings of the reaper of finished task Pods and Jobs.
+	 */
+	private Reaper reaper = new Reaper();
+
+	/**
+	 * The settings of the task launch permits shared by all task launchers of the namespace.
+	 */
+	private DistributedPermits distributedPermits = new DistributedPermits();
+
+	/**
+	 * The limits on the number of concurrent tasks per task name and per quota group.
+	 */
+	private Quotas quotas = new Quotas();
+
+	/**
+	 * The task cancellation settings.
+	 */
+	private Cancellation cancellation = new Cancellation();
+
+	/**
+	 * The node id encoded in the generated task ids. Task ids from launchers sharing a namespace are guaranteed
+	 * to be unique only when each launcher has its own node id. When not set, it is derived from the host name,
+	 * which is the pod name when the launcher runs on Kubernetes.
+	 */
+	private Integer taskIdNodeId;
+
 	/**
 	 * Obtains the {@link RestartPolicy} to use. Defaults to
 	 * {@link KubernetesTaskLauncherProperties#restartPolicy}.
@@ -70,4 +115,410 @@ public class KubernetesTaskLauncherProperties {
 	public void setBackoffLimit(Integer backoffLimit) {
 		this.backoffLimit = backoffLimit;
 	}
+
+	/**
+	 * Get the watch-driven task cache settings.
+	 *
+	 * @return the task cache settings
+	 */
+	public TaskCache getTaskCache() {
+		return taskCache;
+	}
+
+	/**
+	 * Sets the watch-driven task cache settings.
+	 *
+	 * @param taskCache the task cache settings
+	 */
+	public void setTaskCache(TaskCache taskCache) {
+		this.taskCache = taskCache;
+	}
+
+	/**
+	 * Get the launch admission queue settings.
+	 *
+	 * @return the admission queue settings
+	 */
+	public AdmissionQueue getAdmissionQueue() {
+		return admissionQueue;
+	}
+
+	/**
+	 * Sets the launch admission queue settings.
+	 *
+	 * @param admissionQueue the admission queue settings
+	 */
+	public void setAdmissionQueue(AdmissionQueue admissionQueue) {
+		this.admissionQueue = admissionQueue;
+	}
+
+	/**
+	 * Get the maximum number of Pod or Job creates issued concurrently by batch and asynchronous launches.
+	 *
+	 * @return the batch launch parallelism
+	 */
+	public int getBatchLaunchParallelism() {
+		return batchLaunchParallelism;
+	}
+
+	/**
+	 * Sets the maximum number of Pod or Job creates issued concurrently by batch and asynchronous launches.
+	 *
+	 * @param batchLaunchParallelism the batch launch parallelism
+	 */
+	public void setBatchLaunchParallelism(int batchLaunchParallelism) {
+		this.batchLaunchParallelism = batchLaunchParallelism;
+	}
+
+	/**
+	 * Get the settings of the reaper of finished task Pods and Jobs.
+	 *
+	 * @return the reaper settings
+	 */
+	public Reaper getReaper() {
+		return reaper;
+	}
+
+	/**
+	 * Sets the settings of the reaper of finished task Pods and Jobs.
+	 *
+	 * @param reaper the reaper settings
+	 */
+	public void setReaper(Reaper reaper) {
+		this.reaper = reaper;
+	}
+
+	/**
+	 * Get the settings of the task launch permits shared by all task launchers of the namespace.
+	 *
+	 * @return the distributed permits settings
+	 */
+	public DistributedPermits getDistributedPermits() {
+		return distributedPermits;
+	}
+
+	/**
+	 * Sets the settings of the task launch permits shared by all task launchers of the namespace.
+	 *
+	 * @param distributedPermits the distributed permits settings
+	 */
+	public void setDistributedPermits(DistributedPermits distributedPermits) {
+		this.distributedPermits = distributedPermits;
+	}
+
+	/**
+	 * Get the limits on the number of concurrent tasks per task name and per quota group.
+	 *
+	 * @return the quota settings
+	 */
+	public Quotas getQuotas() {
+		return quotas;
+	}
+
+	/**
+	 * Sets the limits on the number of concurrent tasks per task name and per quota group.
+	 *
+	 * @param quotas the quota settings
+	 */
+	public void setQuotas(Quotas quotas) {
+		this.quotas = quotas;
+	}
+
+	/**
+	 * Get the task cancellation settings.
+	 *
+	 * @return the cancellation settings
+	 */
+	public Cancellation getCancellation() {
+		return cancellation;
+	}
+
+	/**
+	 * Sets the task cancellation settings.
+	 *
+	 * @param cancellation the cancellation settings
+	 */
+	public void setCancellation(Cancellation cancellation) {
+		this.cancellation = cancellation;
+	}
+
+	/**
+	 * Get the node id encoded in the generated task ids.
+	 *
+	 * @return the node id, or {@code null} to derive it from the host name
+	 */
+	public Integer getTaskIdNodeId() {
+		return taskIdNodeId;
+	}
+
+	/**
+	 * Sets the node id encoded in the generated task ids.
+	 *
+	 * @param taskIdNodeId the node id, unique among the launchers of a namespace
+	 */
+	public void setTaskIdNodeId(Integer taskIdNodeId) {
+		this.taskIdNodeId = taskIdNodeId;
+	}
+
+	public static class TaskCache {
+
+		/**
+		 * Whether task pods, and task Jobs when Jobs are created, are tracked by watch-driven caches, so that
+		 * the number of running tasks is known without listing pods on every launch and task status is read
+		 * from memory.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Time in seconds between full resyncs of the cache. A value of 0 disables resync.
+		 */
+		private int resyncPeriod = 300;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getResyncPeriod() {
+			return resyncPeriod;
+		}
+
+		public void setResyncPeriod(int resyncPeriod) {
+			this.resyncPeriod = resyncPeriod;
+		}
+	}
+
+	public static class AdmissionQueue {
+
+		/**
+		 * Whether launches beyond the maximum number of concurrent tasks are queued until a running task
+		 * finishes, instead of being rejected.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * The maximum number of queued launches. Launches are rejected when the queue is full.
+		 */
+		private int capacity = 100;
+
+		/**
+		 * Time in milliseconds between checks for free slots, in addition to the checks made when a running
+		 * task finishes.
+		 */
+		private long pollInterval = 5000;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getCapacity() {
+			return capacity;
+		}
+
+		public void setCapacity(int capacity) {
+			this.capacity = capacity;
+		}
+
+		public long getPollInterval() {
+			return pollInterval;
+		}
+
+		public void setPollInterval(long pollInterval) {
+			this.pollInterval = pollInterval;
+		}
+	}
+
+	public static class Reaper {
+
+		/**
+		 * Whether finished tasks are deleted once the retention time has passed. Jobs are created with
+		 * {@code ttlSecondsAfterFinished}, and bare pods are deleted by a periodic sweep.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Time in seconds a finished task is kept.
+		 */
+		private int retention = 86400;
+
+		/**
+		 * Time in seconds between sweeps of finished task pods.
+		 */
+		private int sweepInterval = 600;
+
+		/**
+		 * The maximum number of finished pods listed by one request of a sweep.
+		 */
+		private int batchSize = 500;
+
+		/**
+		 * The maximum number of delete requests per second.
+		 */
+		private int deleteRequestsPerSecond = 5;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getRetention() {
+			return retention;
+		}
+
+		public void setRetention(int retention) {
+			this.retention = retention;
+		}
+
+		public int getSweepInterval() {
+			return sweepInterval;
+		}
+
+		public void setSweepInterval(int sweepInterval) {
+			this.sweepInterval = sweepInterval;
+		}
+
+		public int getBatchSize() {
+			return batchSize;
+		}
+
+		public void setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+		}
+
+		public int getDeleteRequestsPerSecond() {
+			return deleteRequestsPerSecond;
+		}
+
+		public void setDeleteRequestsPerSecond(int deleteRequestsPerSecond) {
+			this.deleteRequestsPerSecond = deleteRequestsPerSecond;
+		}
+	}
+
+	public static class DistributedPermits {
+
+		/**
+		 * Whether the maximum number of concurrent tasks is enforced across all task launchers of the
+		 * namespace, by permits stored in a ConfigMap, rather than by each launcher counting pods.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * The name of the ConfigMap holding the permits.
+		 */
+		private String configMapName = "spring-cloud-deployer-task-permits";
+
+		/**
+		 * Time in seconds a permit is valid for unless renewed by its launcher. The permits of a launcher that
+		 * stopped are released after this time.
+		 */
+		private int leaseDuration = 120;
+
+		/**
+		 * Time in seconds between renewals of the permits of a launcher.
+		 */
+		private int renewInterval = 30;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getConfigMapName() {
+			return configMapName;
+		}
+
+		public void setConfigMapName(String configMapName) {
+			this.configMapName = configMapName;
+		}
+
+		public int getLeaseDuration() {
+			return leaseDuration;
+		}
+
+		public void setLeaseDuration(int leaseDuration) {
+			this.leaseDuration = leaseDuration;
+		}
+
+		public int getRenewInterval() {
+			return renewInterval;
+		}
+
+		public void setRenewInterval(int renewInterval) {
+			this.renewInterval = renewInterval;
+		}
+	}
+	public static class Quotas {
+
+		/**
+		 * The maximum number of concurrent tasks per task name. The
+		 * {@code spring.cloud.deployer.kubernetes.taskQuota} deployment property overrides the limit of the
+		 * task being launched.
+		 */
+		private Map<String, Integer> taskNames = new HashMap<>();
+
+		/**
+		 * The maximum number of concurrent tasks per quota group. A task joins a group through the
+		 * {@code spring.cloud.deployer.kubernetes.quotaGroup} deployment property.
+		 */
+		private Map<String, Integer> groups = new HashMap<>();
+
+		public Map<String, Integer> getTaskNames() {
+			return taskNames;
+		}
+
+		public void setTaskNames(Map<String, Integer> taskNames) {
+			this.taskNames = taskNames;
+		}
+
+		public Map<String, Integer> getGroups() {
+			return groups;
+		}
+
+		public void setGroups(Map<String, Integer> groups) {
+			this.groups = groups;
+		}
+	}
+
+	public static class Cancellation {
+
+		/**
+		 * Whether cancel returns right after sending a single delete of the Pod or Job of the task, with
+		 * background propagation, instead of listing and deleting it synchronously.
+		 */
+		private boolean fast = false;
+
+		/**
+		 * Time in seconds a cancelled task Pod is given to terminate gracefully. Applies to fast cancels.
+		 */
+		private long gracePeriod = 5;
+
+		public boolean isFast() {
+			return fast;
+		}
+
+		public void setFast(boolean fast) {
+			this.fast = fast;
+		}
+
+		public long getGracePeriod() {
+			return gracePeriod;
+		}
+
+		public void setGracePeriod(long gracePeriod) {
+			this.gracePeriod = gracePeriod;
+		}
+	}
 }
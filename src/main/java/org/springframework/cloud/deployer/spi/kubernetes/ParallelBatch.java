@@ -0,0 +1,84 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Runs an operation over a batch of items with bounded parallelism.
+ */
+final class ParallelBatch {
+
+	private ParallelBatch() {
+	}
+
+	/**
+	 * Apply the operation to every item, running at most {@code parallelism} operations at once.
+	 *
+	 * @param name the name of the batch, used for thread names
+	 * @param items the items
+	 * @param parallelism the maximum number of concurrent operations
+	 * @param operation the operation, expected to capture its own failures in its result
+	 * @param <T> the type of the items
+	 * @param <R> the type of the results
+	 * @return the results, in the order of the items
+	 */
+	static <T, R> List<R> run(String name, List<T> items, int parallelism, Function<T, R> operation) {
+		List<R> results = new ArrayList<>(items.size());
+		int threads = Math.min(Math.max(parallelism, 1), items.size());
+		if (threads <= 1) {
+			for (T item : items) {
+				results.add(operation.apply(item));
+			}
+			return results;
+		}
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(name + "-");
+		threadFactory.setDaemon(true);
+		ExecutorService executor = Executors.newFixedThreadPool(threads, threadFactory);
+		try {
+			List<Future<R>> futures = new ArrayList<>(items.size());
+			for (T item : items) {
+				futures.add(executor.submit(() -> operation.apply(item)));
+			}
+			for (Future<R> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while running batch " + name, e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Streams the logs of a set of pods, line by line, to a consumer. Each line is prefixed with the name of its pod
+ * in square brackets. The logs of up to a given number of pods are read concurrently, but the consumer is called
+ * by one thread at a time, and no log is held in memory beyond the line being passed on.
+ */
+public class PodLogStream implements Closeable {
+
+	private final Consumer<String> lineConsumer;
+
+	private final List<Reader> readers = new CopyOnWriteArrayList<>();
+
+	private final Object consumerMonitor = new Object();
+
+	private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+	private volatile boolean closed;
+
+	private PodLogStream(Consumer<String> lineConsumer) {
+		this.lineConsumer = lineConsumer;
+	}
+
+	/**
+	 * Start streaming the logs of the given pods.
+	 *
+	 * @param logReaders the log reader suppliers of the pods by pod name
+	 * @param parallelism the maximum number of pods whose logs are read concurrently
+	 * @param lineConsumer the consumer of the prefixed log lines
+	 * @return the log stream
+	 */
+	static PodLogStream start(Map<String, Supplier<Reader>> logReaders, int parallelism,
+			Consumer<String> lineConsumer) {
+		PodLogStream logStream = new PodLogStream(lineConsumer);
+		if (logReaders.isEmpty()) {
+			logStream.completion.complete(null);
+			return logStream;
+		}
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("pod-log-");
+		threadFactory.setDaemon(true);
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(Math.max(parallelism, 1),
+				logReaders.size()), threadFactory);
+		List<CompletableFuture<Void>> futures = new ArrayList<>(logReaders.size());
+		for (Map.Entry<String, Supplier<Reader>> logReader : logReaders.entrySet()) {
+			futures.add(CompletableFuture.runAsync(() -> logStream.stream(logReader.getKey(), logReader.getValue()),
+					executor));
+		}
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).whenComplete((result, error) -> {
+			executor.shutdown();
+			if (error != null && !logStream.closed) {
+				logStream.completion.completeExceptionally(error);
+			}
+			else {
+				logStream.completion.complete(null);
+			}
+		});
+		return logStream;
+	}
+
+	/**
+	 * Get the future that completes when the logs of all pods have been read, or the stream is closed. When
+	 * following logs, that is when all pods have stopped.
+	 *
+	 * @return the completion future
+	 */
+	public CompletableFuture<Void> getCompletion() {
+		return this.completion;
+	}
+
+	/**
+	 * Stop streaming, closing the logs of all pods.
+	 */
+	@Override
+	public void close() {
+		this.closed = true;
+		for (Reader reader : this.readers) {
+			try {
+				reader.close();
+			}
+			catch (IOException e) {
+				// the stream is being discarded
+			}
+		}
+	}
+
+	private void stream(String podName, Supplier<Reader> logReader) {
+		if (this.closed) {
+			return;
+		}
+		String prefix = "[" + podName + "] ";
+		try (BufferedReader reader = new BufferedReader(logReader.get())) {
+			this.readers.add(reader);
+			String line;
+			while (!this.closed && (line = reader.readLine()) != null) {
+				synchronized (this.consumerMonitor) {
+					this.lineConsumer.accept(prefix + line);
+				}
+			}
+		}
+		catch (IOException e) {
+			if (!this.closed) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
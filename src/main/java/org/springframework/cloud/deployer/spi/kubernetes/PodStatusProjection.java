@@ -0,0 +1,148 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.fabric8.kubernetes.api.model.Pod;
+
+import org.springframework.cloud.deployer.spi.app.AppInstanceStatus;
+import org.springframework.cloud.deployer.spi.app.DeploymentState;
+
+/**
+ * Compact, immutable projection of a {@link Pod} holding only what is needed to report the status of the app
+ * instance running in it. The {@link DeploymentState} and the pod and container attributes are computed once,
+ * when the projection is created, and the attributes are kept as a flat array rather than a map.
+ */
+final class PodStatusProjection {
+
+	private final String name;
+
+	private final String appId;
+
+	private final String deploymentKey;
+
+	private final DeploymentState state;
+
+	private final String[] attributes;
+
+	private PodStatusProjection(String name, String appId, String deploymentKey, DeploymentState state,
+			String[] attributes) {
+		this.name = name;
+		this.appId = appId;
+		this.deploymentKey = deploymentKey;
+		this.state = state;
+		this.attributes = attributes;
+	}
+
+	/**
+	 * Create the projection of a pod.
+	 *
+	 * @param pod the pod
+	 * @param instanceStatus the status of the app instance running in the pod, or {@code null} if the pod has
+	 * no app container
+	 * @return the projection
+	 */
+	static PodStatusProjection of(Pod pod, KubernetesAppInstanceStatus instanceStatus) {
+		Map<String, String> labels = pod.getMetadata().getLabels();
+		String appId = labels != null ? labels.get(AbstractKubernetesDeployer.SPRING_APP_KEY) : null;
+		String deploymentKey = labels != null ? labels.get(AbstractKubernetesDeployer.SPRING_DEPLOYMENT_KEY) : null;
+		if (instanceStatus == null) {
+			return new PodStatusProjection(pod.getMetadata().getName(), appId, deploymentKey, null, new String[0]);
+		}
+		return new PodStatusProjection(pod.getMetadata().getName(), appId, deploymentKey, instanceStatus.getState(),
+				flatten(instanceStatus.getAttributes()));
+	}
+
+	String getName() {
+		return this.name;
+	}
+
+	String getAppId() {
+		return this.appId;
+	}
+
+	String getDeploymentKey() {
+		return this.deploymentKey;
+	}
+
+	/**
+	 * @return the state of the app instance, or {@code null} if the pod does not run an app instance
+	 */
+	DeploymentState getState() {
+		return this.state;
+	}
+
+	/**
+	 * Create the status of the app instance running in the pod.
+	 *
+	 * @param service the service of the app, may be {@code null}
+	 * @return the instance status
+	 */
+	AppInstanceStatus toInstanceStatus(ServiceStatusProjection service) {
+		return new ProjectedAppInstanceStatus(this, service);
+	}
+
+	static String[] flatten(Map<String, String> attributes) {
+		String[] flattened = new String[attributes.size() * 2];
+		int i = 0;
+		for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+			flattened[i++] = attribute.getKey();
+			flattened[i++] = attribute.getValue();
+		}
+		return flattened;
+	}
+
+	static void expand(String[] attributes, Map<String, String> result) {
+		for (int i = 0; i < attributes.length; i += 2) {
+			result.put(attributes[i], attributes[i + 1]);
+		}
+	}
+
+	private static final class ProjectedAppInstanceStatus implements AppInstanceStatus {
+
+		private final PodStatusProjection pod;
+
+		private final ServiceStatusProjection service;
+
+		private ProjectedAppInstanceStatus(PodStatusProjection pod, ServiceStatusProjection service) {
+			this.pod = pod;
+			this.service = service;
+		}
+
+		@Override
+		public String getId() {
+			return this.pod.name;
+		}
+
+		@Override
+		public DeploymentState getState() {
+			return this.pod.state;
+		}
+
+		@Override
+		public Map<String, String> getAttributes() {
+			Map<String, String> result = new HashMap<>();
+			expand(this.pod.attributes, result);
+			if (this.service != null) {
+				this.service.putAttributes(result);
+			}
+			return result;
+		}
+	}
+}
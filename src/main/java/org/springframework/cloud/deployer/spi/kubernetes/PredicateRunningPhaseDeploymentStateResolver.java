@@ -20,13 +20,13 @@ package org.springframework.cloud.deployer.spi.kubernetes;
  * @author David Turanski
  **/
 
+import io.fabric8.kubernetes.api.model.ContainerStateTerminated;
 import io.fabric8.kubernetes.api.model.ContainerStatus;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.cloud.deployer.spi.app.DeploymentState;
 
 import java.util.function.Predicate;
-import java.util.stream.Stream;
 
 
 public class PredicateRunningPhaseDeploymentStateResolver implements RunningPhaseDeploymentStateResolver {
@@ -45,30 +45,38 @@ public class PredicateRunningPhaseDeploymentStateResolver implements RunningPhas
 	}
 
 	public DeploymentState resolve(ContainerStatus containerStatus) {
-
-		Stream<Predicate<ContainerStatus>> conditionsStream = Stream.of(conditions);
-		Boolean allConditionsMet = conditionsStream.reduce((x, y) -> x.and(y)).get().test(containerStatus);
-
-		if (allConditionsMet) {
-			logger.debug("deployment state is " + resolvedState.name());
-			return this.resolvedState;
+		if (containerStatus == null) {
+			return null;
 		}
-		else {
-			Stream<ContainerStatusCondition> report = Stream.of(conditions);
-			report.filter(c -> {
-				boolean result= false;
-				try {
-					result = c.test(containerStatus);
+		// conditions are null-safe and evaluated in order, stopping at the first one that is not met
+		for (ContainerStatusCondition condition : this.conditions) {
+			if (!condition.test(containerStatus)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug(condition + " is not satisfied");
 				}
-				catch (NullPointerException e) {
+				return null;
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("deployment state is " + resolvedState.name());
+		}
+		return this.resolvedState;
+	}
 
-				}
-				return !result;
+	private static int getRestartCount(ContainerStatus containerStatus) {
+		return containerStatus.getRestartCount() != null ? containerStatus.getRestartCount() : 0;
+	}
 
-			}).forEach(c -> logger.debug(c + " is not satisfied"));
+	private static ContainerStateTerminated getLastTerminated(ContainerStatus containerStatus) {
+		return containerStatus.getLastState() != null ? containerStatus.getLastState().getTerminated() : null;
+	}
 
-		}
-		return null;
+	private static ContainerStateTerminated getTerminated(ContainerStatus containerStatus) {
+		return containerStatus.getState() != null ? containerStatus.getState().getTerminated() : null;
+	}
+
+	private static boolean reasonContains(ContainerStateTerminated terminated, String reason) {
+		return terminated != null && terminated.getReason() != null && terminated.getReason().contains(reason);
 	}
 
 	static abstract class ContainerStatusCondition implements Predicate<ContainerStatus> {
@@ -89,7 +97,7 @@ public class PredicateRunningPhaseDeploymentStateResolver implements RunningPhas
 			super(properties, DeploymentState.deployed, new ContainerStatusCondition("container ready") {
 				@Override
 				public boolean test(ContainerStatus containerStatus) {
-					return containerStatus.getReady();
+					return Boolean.TRUE.equals(containerStatus.getReady());
 				}
 			});
 		}
@@ -102,18 +110,15 @@ public class PredicateRunningPhaseDeploymentStateResolver implements RunningPhas
 				new ContainerStatusCondition("restart count > maxTerminatedErrorRestarts") {
 					@Override
 					public boolean test(ContainerStatus containerStatus) {
-						return containerStatus.getRestartCount() > properties.getMaxTerminatedErrorRestarts();
+						return getRestartCount(containerStatus) > properties.getMaxTerminatedErrorRestarts();
 					}
 				}, new ContainerStatusCondition("exit code in (1, 137, 143)") {
 					@Override
 					public boolean test(ContainerStatus containerStatus) {
 						// if we are being killed repeatedly due to OOM or using too much CPU, or abnormal termination.
-						return
-							containerStatus.getLastState() != null &&
-								containerStatus.getLastState().getTerminated() != null &&
-								(containerStatus.getLastState().getTerminated().getExitCode() == 137 ||
-									containerStatus.getLastState().getTerminated().getExitCode() == 143 ||
-									containerStatus.getLastState().getTerminated().getExitCode() == 1);
+						ContainerStateTerminated lastTerminated = getLastTerminated(containerStatus);
+						Integer exitCode = lastTerminated != null ? lastTerminated.getExitCode() : null;
+						return exitCode != null && (exitCode == 137 || exitCode == 143 || exitCode == 1);
 					}
 				});
 		}
@@ -127,25 +132,22 @@ public class PredicateRunningPhaseDeploymentStateResolver implements RunningPhas
 				+ "maxTerminatedErrorRestarts") {
 				@Override
 				public boolean test(ContainerStatus containerStatus) {
-					return containerStatus.getRestartCount() > properties.getMaxTerminatedErrorRestarts();
+					return getRestartCount(containerStatus) > properties.getMaxTerminatedErrorRestarts();
 				}
 			}, new ContainerStatusCondition("last state termination reason == 'Error' and termination reason == "
 				+ "'Error'") {
 				public boolean test(ContainerStatus containerStatus) {
-					return
-						containerStatus.getLastState() != null && containerStatus.getState() != null &&
-							containerStatus.getLastState().getTerminated() != null &&
-							containerStatus.getLastState().getTerminated().getReason() != null &&
-							containerStatus.getLastState().getTerminated().getReason().contains("Error") &&
-							containerStatus.getState().getTerminated() != null &&
-							containerStatus.getState().getTerminated().getReason() != null &&
-							containerStatus.getState().getTerminated().getReason().contains("Error");
+					return reasonContains(getLastTerminated(containerStatus), "Error") &&
+						reasonContains(getTerminated(containerStatus), "Error");
 				}
 			}, new ContainerStatusCondition("last state exit code == exit code") {
 				@Override
 				public boolean test(ContainerStatus containerStatus) {
-					return containerStatus.getLastState().getTerminated().getExitCode().equals(
-						containerStatus.getState().getTerminated().getExitCode());
+					ContainerStateTerminated lastTerminated = getLastTerminated(containerStatus);
+					ContainerStateTerminated terminated = getTerminated(containerStatus);
+					return lastTerminated != null && terminated != null &&
+						lastTerminated.getExitCode() != null &&
+						lastTerminated.getExitCode().equals(terminated.getExitCode());
 				}
 			});
 		}
@@ -157,7 +159,7 @@ public class PredicateRunningPhaseDeploymentStateResolver implements RunningPhas
 				+ "CrashLoopBackOffRestarts") {
 				@Override
 				public boolean test(ContainerStatus containerStatus) {
-					return containerStatus.getRestartCount() > properties.getMaxCrashLoopBackOffRestarts();
+					return getRestartCount(containerStatus) > properties.getMaxCrashLoopBackOffRestarts();
 				}
 			}, new ContainerStatusCondition("waiting in CrashLoopBackOff") {
 				@Override
@@ -180,13 +182,12 @@ public class PredicateRunningPhaseDeploymentStateResolver implements RunningPhas
 			super(properties, DeploymentState.undeployed, new ContainerStatusCondition("restart count == 0") {
 				@Override
 				public boolean test(ContainerStatus containerStatus) {
-					return containerStatus.getRestartCount() == 0;
+					return getRestartCount(containerStatus) == 0;
 				}
 			}, new ContainerStatusCondition("state is terminated") {
 				@Override
 				public boolean test(ContainerStatus containerStatus) {
-					return containerStatus.getState() != null &&
-						containerStatus.getState().getTerminated() != null;
+					return getTerminated(containerStatus) != null;
 				}
 			});
 		}
@@ -0,0 +1,473 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * A local, watch-driven cache of the resources matched by a list/watch operation.
+ *
+ * The resources are listed once when the cache is started and again on every resync. In between, the cache
+ * is kept up to date from watch events, so lookups never call the API server. Rather than the full resource,
+ * the cache holds a projection of it, taken when the resource is received, and indexed by the value of a
+ * single label.
+ *
+ * The client's {@code SharedInformerFactory} is not used: its informers hold full resources without a label
+ * index, and their resync only replays the local store to the handlers, whereas this cache relists from the API
+ * server on resync to repair missed events, and reports how long that relist took and when it last updated.
+ *
+ * @param <T> the type of the watched resource
+ * @param <V> the type of the cached projection of the resource
+ */
+class ResourceCache<T extends HasMetadata, V> {
+
+	private static final Log logger = LogFactory.getLog(ResourceCache.class);
+
+	private static final long RECONNECT_DELAY = 1000L;
+
+	private final String name;
+
+	private final FilterWatchListDeletable<T, ? extends KubernetesResourceList<T>, Boolean, Watch> operation;
+
+	private final String indexLabel;
+
+	private final Function<T, V> projection;
+
+	private final long resyncPeriod;
+
+	private final Map<String, Entry<V>> resources = new ConcurrentHashMap<>();
+
+	private final Map<String, Set<String>> index = new ConcurrentHashMap<>();
+
+	private final List<ResourceEventHandler<V>> eventHandlers = new CopyOnWriteArrayList<>();
+
+	private final List<BiConsumer<String, V>> changeListeners = new CopyOnWriteArrayList<>();
+
+	private final Object storeMonitor = new Object();
+
+	private ScheduledExecutorService executor;
+
+	private volatile CacheWatcher watcher;
+
+	private volatile String resourceVersion;
+
+	private volatile boolean synced;
+
+	private volatile boolean running;
+
+	private volatile long lastUpdateTime;
+
+	private volatile long lastResyncDuration;
+
+	/**
+	 * Create a cache for the resources returned by the given operation.
+	 *
+	 * @param name the name of the cache, used for logging and thread names
+	 * @param operation the list/watch operation, typically already filtered by label
+	 * @param indexLabel the label whose value the resources are indexed by
+	 * @param projection creates the cached projection of a resource
+	 * @param resyncPeriod the time in milliseconds between full resyncs, or {@code 0} to disable resync
+	 */
+	ResourceCache(String name, FilterWatchListDeletable<T, ? extends KubernetesResourceList<T>, Boolean, Watch> operation,
+			String indexLabel, Function<T, V> projection, long resyncPeriod) {
+		this.name = name;
+		this.operation = operation;
+		this.indexLabel = indexLabel;
+		this.projection = projection;
+		this.resyncPeriod = resyncPeriod;
+	}
+
+	/**
+	 * Register a handler that is notified of every change applied to the cache, with the projections of the
+	 * changed resources.
+	 *
+	 * @param eventHandler the event handler
+	 */
+	void addEventHandler(ResourceEventHandler<V> eventHandler) {
+		this.eventHandlers.add(eventHandler);
+	}
+
+	/**
+	 * Register a listener that is notified of every change applied to the cache with the name of the changed
+	 * resource and its new projection, or {@code null} if the resource was removed.
+	 *
+	 * @param changeListener the change listener
+	 */
+	void addChangeListener(BiConsumer<String, V> changeListener) {
+		this.changeListeners.add(changeListener);
+	}
+
+	/**
+	 * Start the cache, performing the initial list and opening the watch. Calling this method on a started
+	 * cache has no effect. If the initial list fails, it is retried in the background.
+	 */
+	synchronized void start() {
+		if (this.running) {
+			return;
+		}
+		this.running = true;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("resource-cache-" + this.name + "-");
+		threadFactory.setDaemon(true);
+		this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		try {
+			relist();
+		}
+		catch (KubernetesClientException e) {
+			logger.warn(String.format("Initial sync of the %s cache failed, retrying", this.name), e);
+			scheduleRelist();
+		}
+		if (this.resyncPeriod > 0) {
+			this.executor.scheduleWithFixedDelay(this::resync, this.resyncPeriod, this.resyncPeriod,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Stop the cache, closing the watch and discarding the cached resources.
+	 */
+	synchronized void stop() {
+		if (!this.running) {
+			return;
+		}
+		this.running = false;
+		this.synced = false;
+		closeWatch();
+		this.executor.shutdownNow();
+		synchronized (this.storeMonitor) {
+			this.resources.clear();
+			this.index.clear();
+		}
+	}
+
+	/**
+	 * Whether the cache has completed a list and its watch is open, meaning it reflects the current state of
+	 * the cluster.
+	 *
+	 * @return {@code true} if the cache can be used to answer queries
+	 */
+	boolean isSynced() {
+		return this.running && this.synced;
+	}
+
+	/**
+	 * Get the projections of the cached resources carrying the index label with the given value.
+	 *
+	 * @param labelValue the value of the index label
+	 * @return the matching projections, never {@code null}
+	 */
+	List<V> get(String labelValue) {
+		Set<String> names = this.index.get(labelValue);
+		if (names == null) {
+			return Collections.emptyList();
+		}
+		List<V> result = new ArrayList<>(names.size());
+		for (String resourceName : names) {
+			Entry<V> entry = this.resources.get(resourceName);
+			if (entry != null) {
+				result.add(entry.value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Get the projections of all cached resources.
+	 *
+	 * @return the projections, never {@code null}
+	 */
+	List<V> getAll() {
+		List<V> result = new ArrayList<>(this.resources.size());
+		for (Entry<V> entry : this.resources.values()) {
+			result.add(entry.value);
+		}
+		return result;
+	}
+
+	/**
+	 * Get the projection of the cached resource with the given name.
+	 *
+	 * @param resourceName the name of the resource
+	 * @return the projection, or {@code null} if no such resource is cached
+	 */
+	V getByName(String resourceName) {
+		Entry<V> entry = this.resources.get(resourceName);
+		return entry != null ? entry.value : null;
+	}
+
+	/**
+	 * Apply a resource written by this client to the cache ahead of its watch event, so that a lookup right
+	 * after the write sees it. The watch event that follows replaces it.
+	 *
+	 * @param resource the created or updated resource
+	 */
+	void update(T resource) {
+		if (isSynced()) {
+			put(resource);
+		}
+	}
+
+	/**
+	 * Drop a resource deleted by this client from the cache ahead of its watch event, so that a lookup right
+	 * after the delete no longer sees it.
+	 *
+	 * @param resourceName the name of the deleted resource
+	 */
+	void evict(String resourceName) {
+		if (isSynced()) {
+			remove(resourceName);
+		}
+	}
+
+	/**
+	 * @return the time in milliseconds since the epoch at which the cache last completed a list or received a
+	 * watch event, or {@code 0} if it never did
+	 */
+	long getLastUpdateTime() {
+		return this.lastUpdateTime;
+	}
+
+	/**
+	 * @return the time in milliseconds the last full list of the resources took
+	 */
+	long getLastResyncDuration() {
+		return this.lastResyncDuration;
+	}
+
+	private void resync() {
+		try {
+			relist();
+		}
+		catch (KubernetesClientException e) {
+			logger.warn(String.format("Resync of the %s cache failed, retrying", this.name), e);
+			scheduleRelist();
+		}
+	}
+
+	private synchronized void relist() {
+		if (!this.running) {
+			return;
+		}
+		long start = System.currentTimeMillis();
+		// the cache is stale until the list below succeeds, and closing the watch no longer marks it as such
+		this.synced = false;
+		closeWatch();
+		KubernetesResourceList<T> resourceList = this.operation.list();
+		replace(resourceList.getItems());
+		this.resourceVersion = resourceList.getMetadata() != null ?
+				resourceList.getMetadata().getResourceVersion() : null;
+		watch();
+		this.synced = true;
+		this.lastUpdateTime = System.currentTimeMillis();
+		this.lastResyncDuration = this.lastUpdateTime - start;
+		logger.debug(String.format("Synced the %s cache with %d resources at resourceVersion %s", this.name,
+				this.resources.size(), this.resourceVersion));
+	}
+
+	private synchronized void rewatch(KubernetesClientException cause) {
+		if (!this.running) {
+			return;
+		}
+		if (cause != null && cause.getCode() == HttpURLConnection.HTTP_GONE) {
+			logger.debug(String.format("Watch of the %s cache expired, relisting", this.name));
+			resync();
+			return;
+		}
+		try {
+			closeWatch();
+			watch();
+			this.synced = true;
+		}
+		catch (KubernetesClientException e) {
+			logger.debug(String.format("Could not resume watch of the %s cache, relisting", this.name), e);
+			resync();
+		}
+	}
+
+	private void scheduleRelist() {
+		this.executor.schedule(this::resync, RECONNECT_DELAY, TimeUnit.MILLISECONDS);
+	}
+
+	private void watch() {
+		CacheWatcher cacheWatcher = new CacheWatcher();
+		this.watcher = cacheWatcher;
+		cacheWatcher.watch = this.operation.watch(
+				new ListOptionsBuilder().withResourceVersion(this.resourceVersion).build(), cacheWatcher);
+	}
+
+	private void closeWatch() {
+		CacheWatcher cacheWatcher = this.watcher;
+		this.watcher = null;
+		if (cacheWatcher != null && cacheWatcher.watch != null) {
+			cacheWatcher.watch.close();
+		}
+	}
+
+	private void replace(List<T> items) {
+		Set<String> names = new HashSet<>();
+		for (T item : items) {
+			names.add(item.getMetadata().getName());
+			put(item);
+		}
+		for (String resourceName : new ArrayList<>(this.resources.keySet())) {
+			if (!names.contains(resourceName)) {
+				remove(resourceName);
+			}
+		}
+	}
+
+	private void put(T resource) {
+		String resourceName = resource.getMetadata().getName();
+		Map<String, String> labels = resource.getMetadata().getLabels();
+		String indexValue = labels != null ? labels.get(this.indexLabel) : null;
+		Entry<V> entry = new Entry<>(this.projection.apply(resource), indexValue);
+		Entry<V> previous;
+		synchronized (this.storeMonitor) {
+			previous = this.resources.put(resourceName, entry);
+			if (previous != null) {
+				unindex(resourceName, previous);
+			}
+			index(resourceName, entry);
+		}
+		for (ResourceEventHandler<V> eventHandler : this.eventHandlers) {
+			if (previous == null) {
+				eventHandler.onAdd(entry.value);
+			}
+			else {
+				eventHandler.onUpdate(previous.value, entry.value);
+			}
+		}
+		for (BiConsumer<String, V> changeListener : this.changeListeners) {
+			changeListener.accept(resourceName, entry.value);
+		}
+	}
+
+	private void remove(String resourceName) {
+		Entry<V> previous;
+		synchronized (this.storeMonitor) {
+			previous = this.resources.remove(resourceName);
+			if (previous != null) {
+				unindex(resourceName, previous);
+			}
+		}
+		if (previous != null) {
+			for (ResourceEventHandler<V> eventHandler : this.eventHandlers) {
+				eventHandler.onDelete(previous.value, false);
+			}
+			for (BiConsumer<String, V> changeListener : this.changeListeners) {
+				changeListener.accept(resourceName, null);
+			}
+		}
+	}
+
+	private void index(String resourceName, Entry<V> entry) {
+		if (entry.indexValue != null) {
+			this.index.computeIfAbsent(entry.indexValue, key -> ConcurrentHashMap.newKeySet()).add(resourceName);
+		}
+	}
+
+	private void unindex(String resourceName, Entry<V> entry) {
+		if (entry.indexValue != null) {
+			Set<String> names = this.index.get(entry.indexValue);
+			if (names != null) {
+				names.remove(resourceName);
+				if (names.isEmpty()) {
+					this.index.remove(entry.indexValue);
+				}
+			}
+		}
+	}
+
+	private static final class Entry<V> {
+
+		private final V value;
+
+		private final String indexValue;
+
+		private Entry(V value, String indexValue) {
+			this.value = value;
+			this.indexValue = indexValue;
+		}
+	}
+
+	private class CacheWatcher implements Watcher<T> {
+
+		private Watch watch;
+
+		@Override
+		public void eventReceived(Action action, T resource) {
+			if (ResourceCache.this.watcher != this) {
+				return;
+			}
+			if (resource != null && resource.getMetadata() != null) {
+				ResourceCache.this.resourceVersion = resource.getMetadata().getResourceVersion();
+			}
+			ResourceCache.this.lastUpdateTime = System.currentTimeMillis();
+			switch (action) {
+			case ADDED:
+			case MODIFIED:
+				put(resource);
+				break;
+			case DELETED:
+				if (resource != null && resource.getMetadata() != null) {
+					remove(resource.getMetadata().getName());
+				}
+				break;
+			default:
+				logger.debug(String.format("Received %s event for the %s cache, relisting", action,
+						ResourceCache.this.name));
+				ResourceCache.this.synced = false;
+				scheduleRelist();
+			}
+		}
+
+		@Override
+		public void onClose(KubernetesClientException cause) {
+			if (ResourceCache.this.watcher != this || !ResourceCache.this.running) {
+				return;
+			}
+			logger.debug(String.format("Watch of the %s cache closed", ResourceCache.this.name), cause);
+			ResourceCache.this.synced = false;
+			ResourceCache.this.executor.schedule(() -> rewatch(cause), RECONNECT_DELAY, TimeUnit.MILLISECONDS);
+		}
+	}
+}
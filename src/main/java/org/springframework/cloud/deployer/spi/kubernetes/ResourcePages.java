@@ -0,0 +1,99 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Iterates over a list of resources page by page, using the {@code limit} and {@code continue} parameters of the
+ * list API. A page is only fetched once the previous one has been consumed, so that the whole list is never held
+ * in memory and a consumer that stops early does not fetch the remaining pages.
+ */
+class ResourcePages<T extends HasMetadata> implements Iterator<T> {
+
+	private final Function<ListOptions, ? extends KubernetesResourceList<T>> pageFetcher;
+
+	private final int pageSize;
+
+	private Iterator<T> page = Collections.emptyIterator();
+
+	private String continueToken;
+
+	private boolean lastPage;
+
+	/**
+	 * Create an iterator.
+	 *
+	 * @param pageFetcher lists a page of resources given list options holding the page size and the continue
+	 * token of the previous page, none for the first page
+	 * @param pageSize the maximum number of resources per page
+	 */
+	ResourcePages(Function<ListOptions, ? extends KubernetesResourceList<T>> pageFetcher, int pageSize) {
+		this.pageFetcher = pageFetcher;
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Stream a list of resources page by page.
+	 *
+	 * @param pageFetcher lists a page of resources given list options holding the page size and the continue
+	 * token of the previous page, none for the first page
+	 * @param pageSize the maximum number of resources per page
+	 * @param <T> the resource type
+	 * @return the lazily fetched resources
+	 */
+	static <T extends HasMetadata> Stream<T> stream(
+			Function<ListOptions, ? extends KubernetesResourceList<T>> pageFetcher, int pageSize) {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new ResourcePages<>(pageFetcher, pageSize),
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!this.page.hasNext() && !this.lastPage) {
+			KubernetesResourceList<T> resources = this.pageFetcher.apply(new ListOptionsBuilder()
+					.withLimit((long) this.pageSize).withContinue(this.continueToken).build());
+			this.page = resources.getItems() != null ? resources.getItems().iterator() :
+					Collections.emptyIterator();
+			this.continueToken = resources.getMetadata() != null ? resources.getMetadata().getContinue() : null;
+			this.lastPage = !StringUtils.hasText(this.continueToken);
+		}
+		return this.page.hasNext();
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return this.page.next();
+	}
+}
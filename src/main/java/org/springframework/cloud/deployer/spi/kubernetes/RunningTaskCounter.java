@@ -0,0 +1,70 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+
+/**
+ * Keeps the number of running task pods up to date from the events of a task pod {@link ResourceCache}, so
+ * that it can be read without listing pods.
+ */
+class RunningTaskCounter implements ResourceEventHandler<LaunchState> {
+
+	private final AtomicInteger count = new AtomicInteger();
+
+	private final Runnable releaseCallback;
+
+	/**
+	 * Create a counter.
+	 *
+	 * @param releaseCallback called whenever a running task stops running
+	 */
+	RunningTaskCounter(Runnable releaseCallback) {
+		this.releaseCallback = releaseCallback;
+	}
+
+	int get() {
+		return this.count.get();
+	}
+
+	@Override
+	public void onAdd(LaunchState state) {
+		if (state == LaunchState.running) {
+			this.count.incrementAndGet();
+		}
+	}
+
+	@Override
+	public void onUpdate(LaunchState oldState, LaunchState newState) {
+		if (oldState != newState) {
+			onDelete(oldState, false);
+			onAdd(newState);
+		}
+	}
+
+	@Override
+	public void onDelete(LaunchState state, boolean deletedFinalStateUnknown) {
+		if (state == LaunchState.running) {
+			this.count.decrementAndGet();
+			this.releaseCallback.run();
+		}
+	}
+}
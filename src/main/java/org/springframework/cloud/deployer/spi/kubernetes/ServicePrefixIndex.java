@@ -0,0 +1,99 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Index of services by name that finds the service whose name is a prefix of a given deployment key.
+ *
+ * Rather than testing every service against the key, only the prefixes of the key whose length matches the
+ * length of some service name are looked up, so a lookup costs one hash lookup per distinct service name
+ * length. When more than one service name is a prefix of the key, the service that comes first in the list
+ * the index was built from wins, as with a linear scan.
+ */
+class ServicePrefixIndex<S> {
+
+	private final Map<String, Entry<S>> servicesByName;
+
+	private final int[] nameLengths;
+
+	/**
+	 * Build the index over the given services.
+	 *
+	 * @param services the services to index, may be {@code null}
+	 * @param nameFunction returns the name of a service
+	 */
+	ServicePrefixIndex(List<S> services, Function<S, String> nameFunction) {
+		this.servicesByName = new HashMap<>();
+		TreeSet<Integer> lengths = new TreeSet<>();
+		if (services != null) {
+			for (int i = 0; i < services.size(); i++) {
+				S service = services.get(i);
+				String name = nameFunction.apply(service);
+				if (name != null && !this.servicesByName.containsKey(name)) {
+					this.servicesByName.put(name, new Entry<>(service, i));
+					lengths.add(name.length());
+				}
+			}
+		}
+		this.nameLengths = new int[lengths.size()];
+		int i = 0;
+		for (Integer length : lengths) {
+			this.nameLengths[i++] = length;
+		}
+	}
+
+	/**
+	 * Find the service whose name is a prefix of the given deployment key.
+	 *
+	 * @param deploymentKey the deployment key
+	 * @return the matching service, or {@code null} if there is none
+	 */
+	S find(String deploymentKey) {
+		if (deploymentKey == null) {
+			return null;
+		}
+		Entry<S> match = null;
+		for (int length : this.nameLengths) {
+			if (length > deploymentKey.length()) {
+				break;
+			}
+			Entry<S> entry = this.servicesByName.get(deploymentKey.substring(0, length));
+			if (entry != null && (match == null || entry.order < match.order)) {
+				match = entry;
+			}
+		}
+		return match != null ? match.service : null;
+	}
+
+	private static class Entry<S> {
+
+		private final S service;
+
+		private final int order;
+
+		Entry(S service, int order) {
+			this.service = service;
+			this.order = order;
+		}
+	}
+}
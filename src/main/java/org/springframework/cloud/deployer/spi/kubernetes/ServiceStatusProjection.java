@@ -0,0 +1,58 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.fabric8.kubernetes.api.model.Service;
+
+/**
+ * Compact, immutable projection of a {@link Service} holding only its name and the attributes it contributes
+ * to the status of app instances, such as the load balancer ingress and port.
+ */
+final class ServiceStatusProjection {
+
+	private final String name;
+
+	private final String[] attributes;
+
+	private ServiceStatusProjection(String name, String[] attributes) {
+		this.name = name;
+		this.attributes = attributes;
+	}
+
+	/**
+	 * Create the projection of a service.
+	 *
+	 * @param service the service
+	 * @return the projection
+	 */
+	static ServiceStatusProjection of(Service service) {
+		Map<String, String> attributes = new HashMap<>();
+		KubernetesAppInstanceStatus.putServiceAttributes(attributes, service);
+		return new ServiceStatusProjection(service.getMetadata().getName(), PodStatusProjection.flatten(attributes));
+	}
+
+	String getName() {
+		return this.name;
+	}
+
+	void putAttributes(Map<String, String> result) {
+		PodStatusProjection.expand(this.attributes, result);
+	}
+}
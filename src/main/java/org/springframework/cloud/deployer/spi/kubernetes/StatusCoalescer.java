@@ -0,0 +1,174 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent status queries for the same id into a single computation ("single-flight"), and
+ * reuses the computed status for a short time-to-live.
+ *
+ * Callers arriving while a status is being computed wait for that computation instead of starting their
+ * own. A status that failed to compute is never reused. Hit, miss and coalesced call counts are kept so
+ * that the time-to-live can be sized.
+ *
+ * @param <T> the type of the status
+ */
+public class StatusCoalescer<T> {
+
+	private static final int PURGE_THRESHOLD = 1024;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final boolean enabled;
+
+	private final long ttlNanos;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong coalescedCount = new AtomicLong();
+
+	/**
+	 * Create a coalescer.
+	 *
+	 * @param enabled whether to coalesce at all; if not, every query is computed
+	 * @param ttl the time in milliseconds a computed status is reused for
+	 */
+	public StatusCoalescer(boolean enabled, long ttl) {
+		this.enabled = enabled;
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(ttl, 0));
+	}
+
+	/**
+	 * Get the status for the given id, either from a recent or in-flight computation, or by computing it.
+	 *
+	 * @param id the id
+	 * @param loader computes the status for an id
+	 * @return the status
+	 */
+	public T get(String id, Function<String, T> loader) {
+		if (!this.enabled) {
+			return loader.apply(id);
+		}
+		while (true) {
+			Entry entry = this.entries.get(id);
+			if (entry != null) {
+				if (!entry.future.isDone()) {
+					this.coalescedCount.incrementAndGet();
+					return join(entry.future);
+				}
+				if (!entry.future.isCompletedExceptionally() && !entry.isExpired(System.nanoTime())) {
+					this.hitCount.incrementAndGet();
+					return entry.future.join();
+				}
+			}
+			Entry newEntry = new Entry();
+			boolean owner = entry == null ? this.entries.putIfAbsent(id, newEntry) == null :
+					this.entries.replace(id, entry, newEntry);
+			if (owner) {
+				this.missCount.incrementAndGet();
+				return load(id, newEntry, loader);
+			}
+		}
+	}
+
+	/**
+	 * Discard the status stored for the given id, typically after an operation that changes it.
+	 *
+	 * @param id the id
+	 */
+	public void invalidate(String id) {
+		this.entries.remove(id);
+	}
+
+	/**
+	 * @return the number of queries answered from a previously computed status
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * @return the number of queries that computed the status
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * @return the number of queries that waited for a computation started by another query
+	 */
+	public long getCoalescedCount() {
+		return this.coalescedCount.get();
+	}
+
+	private T load(String id, Entry entry, Function<String, T> loader) {
+		T status;
+		try {
+			status = loader.apply(id);
+		}
+		catch (RuntimeException | Error e) {
+			this.entries.remove(id, entry);
+			entry.future.completeExceptionally(e);
+			throw e;
+		}
+		entry.completedAt = System.nanoTime();
+		entry.future.complete(status);
+		if (this.ttlNanos == 0) {
+			this.entries.remove(id, entry);
+		}
+		else if (this.entries.size() > PURGE_THRESHOLD) {
+			long now = System.nanoTime();
+			this.entries.values().removeIf(candidate -> candidate.future.isDone() && candidate.isExpired(now));
+		}
+		return status;
+	}
+
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private class Entry {
+
+		private final CompletableFuture<T> future = new CompletableFuture<>();
+
+		private volatile long completedAt;
+
+		boolean isExpired(long now) {
+			return now - this.completedAt >= StatusCoalescer.this.ttlNanos;
+		}
+	}
+}
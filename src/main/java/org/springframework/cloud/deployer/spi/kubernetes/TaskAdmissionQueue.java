@@ -0,0 +1,375 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cloud.deployer.spi.core.AppDeploymentRequest;
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Bounded queue of task launches waiting for a free slot under the maximum number of concurrent tasks.
+ *
+ * Launches are released in order of priority, highest first, and in arrival order for equal priorities. The
+ * queue is drained whenever a running task finishes and on a fixed interval. Launches released by the queue
+ * keep occupying a slot until their pod leaves the {@code Pending} phase and is counted as running, so that
+ * a burst of releases does not overshoot the limit. Launches held back by a quota of their own are skipped
+ * without taking a slot, so that they do not hold up the launches of other tasks.
+ */
+class TaskAdmissionQueue {
+
+	private static final Log logger = LogFactory.getLog(TaskAdmissionQueue.class);
+
+	private final int capacity;
+
+	private final long pollInterval;
+
+	private final long admissionTimeout;
+
+	private final IntSupplier maximumConcurrentTasks;
+
+	private final IntSupplier runningTasks;
+
+	private final boolean runningTasksIncludeAdmitted;
+
+	private final Function<String, LaunchState> launchStateResolver;
+
+	private final BiPredicate<String, AppDeploymentRequest> launcher;
+
+	private final Predicate<AppDeploymentRequest> quotaExhausted;
+
+	private final BiConsumer<String, RuntimeException> launchFailureHandler;
+
+	private final PriorityQueue<PendingLaunch> queue = new PriorityQueue<>(
+			Comparator.comparingInt((PendingLaunch pending) -> -pending.priority)
+					.thenComparingLong(pending -> pending.sequence));
+
+	private final Map<String, PendingLaunch> pendingById = new LinkedHashMap<>();
+
+	private final Map<String, Long> admitted = new LinkedHashMap<>();
+
+	private final Object drainMonitor = new Object();
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final AtomicLong admittedCount = new AtomicLong();
+
+	private final AtomicLong totalWaitTime = new AtomicLong();
+
+	private final AtomicLong maxWaitTime = new AtomicLong();
+
+	private ScheduledExecutorService executor;
+
+	/**
+	 * Create a queue.
+	 *
+	 * @param capacity the maximum number of queued launches
+	 * @param pollInterval the time in milliseconds between drains of the queue
+	 * @param maximumConcurrentTasks supplies the maximum number of concurrent tasks
+	 * @param runningTasks supplies the number of running tasks
+	 * @param runningTasksIncludeAdmitted whether the number of running tasks already counts the released tasks
+	 * whose pod has not started yet, as a count of held launch permits does
+	 * @param launchStateResolver resolves the state of the pod of a released task by id
+	 * @param launcher launches a released task, returning {@code false} if it found no free slot after all
+	 * @param quotaExhausted whether a quota of a launch is at its limit, so that it has to keep waiting
+	 * @param launchFailureHandler notified with the id of a released task and the error when its launch fails
+	 */
+	TaskAdmissionQueue(int capacity, long pollInterval, IntSupplier maximumConcurrentTasks, IntSupplier runningTasks,
+			boolean runningTasksIncludeAdmitted, Function<String, LaunchState> launchStateResolver,
+			BiPredicate<String, AppDeploymentRequest> launcher, Predicate<AppDeploymentRequest> quotaExhausted,
+			BiConsumer<String, RuntimeException> launchFailureHandler) {
+		this.capacity = capacity;
+		this.pollInterval = pollInterval;
+		this.admissionTimeout = Math.max(pollInterval * 12, TimeUnit.MINUTES.toMillis(1));
+		this.maximumConcurrentTasks = maximumConcurrentTasks;
+		this.runningTasks = runningTasks;
+		this.runningTasksIncludeAdmitted = runningTasksIncludeAdmitted;
+		this.launchStateResolver = launchStateResolver;
+		this.launcher = launcher;
+		this.quotaExhausted = quotaExhausted;
+		this.launchFailureHandler = launchFailureHandler;
+	}
+
+	/**
+	 * Queue a launch.
+	 *
+	 * @param appId the id of the task
+	 * @param request the launch request
+	 * @param priority the priority of the launch, higher values are released first
+	 * @return {@code false} if the queue is full
+	 */
+	synchronized boolean offer(String appId, AppDeploymentRequest request, int priority) {
+		if (this.pendingById.size() >= this.capacity) {
+			return false;
+		}
+		PendingLaunch pending = new PendingLaunch(appId, request, priority, this.sequence.getAndIncrement());
+		this.queue.add(pending);
+		this.pendingById.put(appId, pending);
+		if (this.executor == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("task-admission-");
+			threadFactory.setDaemon(true);
+			this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+			this.executor.scheduleWithFixedDelay(this::drain, this.pollInterval, this.pollInterval,
+					TimeUnit.MILLISECONDS);
+		}
+		return true;
+	}
+
+	/**
+	 * @param appId the id of the task
+	 * @return whether a launch of the task is waiting in the queue, or being released by it
+	 */
+	synchronized boolean contains(String appId) {
+		return this.pendingById.containsKey(appId);
+	}
+
+	/**
+	 * Remove a launch from the queue. A launch that is being released can no longer be removed.
+	 *
+	 * @param appId the id of the task
+	 * @return whether the launch was queued
+	 */
+	synchronized boolean remove(String appId) {
+		PendingLaunch pending = this.pendingById.get(appId);
+		if (pending == null || pending.launching) {
+			return false;
+		}
+		this.pendingById.remove(appId);
+		this.queue.remove(pending);
+		return true;
+	}
+
+	/**
+	 * Request a drain of the queue, without blocking the caller.
+	 */
+	void signal() {
+		ScheduledExecutorService executor = this.executor;
+		if (executor != null && !executor.isShutdown()) {
+			executor.execute(this::drain);
+		}
+	}
+
+	/**
+	 * Release as many queued launches as there are free slots. The queue is only locked to take launches from
+	 * it and to put them back. The slot count, the quota checks and the launches call the API server and run
+	 * without the lock, so that the queue, and the status of queued tasks, stay available meanwhile.
+	 */
+	void drain() {
+		synchronized (this.drainMonitor) {
+			if (getDepth() == 0) {
+				return;
+			}
+			List<PendingLaunch> held = new ArrayList<>();
+			try {
+				int admitted = pruneAdmitted();
+				int slots = this.maximumConcurrentTasks.getAsInt() - this.runningTasks.getAsInt() -
+						(this.runningTasksIncludeAdmitted ? 0 : admitted);
+				PendingLaunch pending;
+				while (slots > 0 && (pending = poll()) != null) {
+					boolean quotaExhausted;
+					try {
+						quotaExhausted = this.quotaExhausted.test(pending.request);
+					}
+					catch (RuntimeException e) {
+						held.add(pending);
+						throw e;
+					}
+					if (quotaExhausted) {
+						held.add(pending);
+						continue;
+					}
+					if (!claim(pending)) {
+						// removed from the queue meanwhile
+						continue;
+					}
+					slots--;
+					boolean requeue = false;
+					RuntimeException launchError = null;
+					try {
+						if (this.launcher.test(pending.appId, pending.request)) {
+							recordWaitTime(System.currentTimeMillis() - pending.queuedAt);
+							this.admitted.put(pending.appId, System.currentTimeMillis());
+						}
+						else {
+							// another launcher took the slot, keep the launch at the head of the queue
+							requeue = true;
+						}
+					}
+					catch (RuntimeException e) {
+						recordWaitTime(System.currentTimeMillis() - pending.queuedAt);
+						logger.error(String.format("Failed to launch queued task: %s", pending.appId), e);
+						launchError = e;
+					}
+					finally {
+						release(pending, requeue);
+					}
+					if (launchError != null) {
+						// the failure is reported once the launch is no longer in the queue
+						this.launchFailureHandler.accept(pending.appId, launchError);
+					}
+					if (requeue) {
+						break;
+					}
+				}
+			}
+			catch (RuntimeException e) {
+				logger.warn("Failed to drain the task admission queue", e);
+			}
+			finally {
+				requeue(held);
+			}
+		}
+	}
+
+	void stop() {
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return the number of queued launches, including those being released
+	 */
+	synchronized int getDepth() {
+		return this.pendingById.size();
+	}
+
+	/**
+	 * @return the number of launches released by the queue
+	 */
+	long getAdmittedCount() {
+		return this.admittedCount.get();
+	}
+
+	/**
+	 * @return the average time in milliseconds launches waited in the queue
+	 */
+	long getAverageWaitTime() {
+		long count = this.admittedCount.get();
+		return count > 0 ? this.totalWaitTime.get() / count : 0;
+	}
+
+	/**
+	 * @return the longest time in milliseconds a launch waited in the queue
+	 */
+	long getMaxWaitTime() {
+		return this.maxWaitTime.get();
+	}
+
+	/**
+	 * Forget released launches whose pod is no longer pending, and return the number still pending. Only
+	 * called by drains, which hold the drain monitor.
+	 */
+	private int pruneAdmitted() {
+		long now = System.currentTimeMillis();
+		for (Iterator<Map.Entry<String, Long>> it = this.admitted.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<String, Long> entry = it.next();
+			LaunchState state = this.launchStateResolver.apply(entry.getKey());
+			boolean pending = state == LaunchState.launching || state == LaunchState.unknown;
+			if (!pending || now - entry.getValue() > this.admissionTimeout) {
+				it.remove();
+			}
+		}
+		return this.admitted.size();
+	}
+
+	private synchronized PendingLaunch poll() {
+		return this.queue.poll();
+	}
+
+	/**
+	 * Mark a launch taken from the queue as being released, unless it was removed meanwhile.
+	 */
+	private synchronized boolean claim(PendingLaunch pending) {
+		if (this.pendingById.get(pending.appId) != pending) {
+			return false;
+		}
+		pending.launching = true;
+		return true;
+	}
+
+	/**
+	 * Forget a launch that was released, or put it back in the queue.
+	 */
+	private synchronized void release(PendingLaunch pending, boolean requeue) {
+		pending.launching = false;
+		if (requeue) {
+			this.queue.add(pending);
+		}
+		else {
+			this.pendingById.remove(pending.appId);
+		}
+	}
+
+	/**
+	 * Put back launches taken from the queue but held back, unless they were removed meanwhile.
+	 */
+	private synchronized void requeue(List<PendingLaunch> held) {
+		for (PendingLaunch pending : held) {
+			if (this.pendingById.get(pending.appId) == pending) {
+				this.queue.add(pending);
+			}
+		}
+	}
+
+	private void recordWaitTime(long waitTime) {
+		this.admittedCount.incrementAndGet();
+		this.totalWaitTime.addAndGet(waitTime);
+		this.maxWaitTime.accumulateAndGet(waitTime, Math::max);
+	}
+
+	private static final class PendingLaunch {
+
+		private final String appId;
+
+		private final AppDeploymentRequest request;
+
+		private final int priority;
+
+		private final long sequence;
+
+		private final long queuedAt = System.currentTimeMillis();
+
+		private boolean launching;
+
+		private PendingLaunch(String appId, AppDeploymentRequest request, int priority, long sequence) {
+			this.appId = appId;
+			this.request = request;
+			this.priority = priority;
+			this.sequence = sequence;
+		}
+	}
+}
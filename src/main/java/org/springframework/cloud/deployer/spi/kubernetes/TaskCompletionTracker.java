@@ -0,0 +1,124 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+import org.springframework.cloud.deployer.spi.task.TaskStatus;
+
+/**
+ * Completes the futures of asynchronously launched tasks from the changes of a task {@link ResourceCache}.
+ *
+ * A future completes with the status of its task once the task reaches a terminal state, and with a
+ * {@link LaunchState#cancelled} status if the task is deleted before that. A tracker of deletions only completes
+ * futures once their task is deleted.
+ */
+class TaskCompletionTracker implements BiConsumer<String, LaunchState> {
+
+	private final Map<String, CompletableFuture<TaskStatus>> futures = new ConcurrentHashMap<>();
+
+	private final boolean deletionOnly;
+
+	TaskCompletionTracker() {
+		this(false);
+	}
+
+	/**
+	 * Create a tracker.
+	 *
+	 * @param deletionOnly whether futures complete only once their task is deleted, rather than once it reaches
+	 * a terminal state
+	 */
+	TaskCompletionTracker(boolean deletionOnly) {
+		this.deletionOnly = deletionOnly;
+	}
+
+	/**
+	 * Get the future of a task, creating it if needed.
+	 *
+	 * @param id the id of the task
+	 * @return the future, completed when the task reaches a terminal state
+	 */
+	CompletableFuture<TaskStatus> track(String id) {
+		return this.futures.computeIfAbsent(id, key -> new CompletableFuture<>());
+	}
+
+	/**
+	 * @return the number of tasks whose future is not yet complete
+	 */
+	int getTrackedCount() {
+		return this.futures.size();
+	}
+
+	@Override
+	public void accept(String id, LaunchState state) {
+		if (state == null) {
+			complete(id, LaunchState.cancelled);
+		}
+		else if (!this.deletionOnly && isTerminal(state)) {
+			complete(id, state);
+		}
+	}
+
+	/**
+	 * Complete the future of a task, if it is tracked.
+	 *
+	 * @param id the id of the task
+	 * @param state the final state of the task
+	 */
+	void complete(String id, LaunchState state) {
+		CompletableFuture<TaskStatus> future = this.futures.remove(id);
+		if (future != null) {
+			future.complete(new TaskStatus(id, state, new HashMap<>()));
+		}
+	}
+
+	/**
+	 * Complete the future of a task exceptionally, if it is tracked.
+	 *
+	 * @param id the id of the task
+	 * @param error the reason the task could not be tracked to completion
+	 */
+	void fail(String id, Throwable error) {
+		CompletableFuture<TaskStatus> future = this.futures.remove(id);
+		if (future != null) {
+			future.completeExceptionally(error);
+		}
+	}
+
+	/**
+	 * Complete all outstanding futures exceptionally.
+	 *
+	 * @param error the reason the tasks can no longer be tracked
+	 */
+	void failAll(Throwable error) {
+		for (String id : new ArrayList<>(this.futures.keySet())) {
+			fail(id, error);
+		}
+	}
+
+	private static boolean isTerminal(LaunchState state) {
+		return state == LaunchState.complete || state == LaunchState.failed || state == LaunchState.cancelled
+				|| state == LaunchState.error;
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.hashids.Hashids;
+
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Generates task ids of the form {@code <name>-<hash>}. The hash encodes a timestamp that is bumped past the
+ * last one issued, so ids from one generator never repeat even when many are created in the same millisecond,
+ * and the node id of the generator.
+ *
+ * Ids from different generators are only guaranteed to differ when each generator is given its own node id.
+ * Otherwise the node id is derived from the host name, which is the pod name when running on Kubernetes, and
+ * failing that chosen at random; two generators then collide only if their node ids match and they issue an id
+ * for the same task name in the same millisecond.
+ */
+class TaskIdGenerator {
+
+	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz1234567890";
+
+	private static final int MAX_ID_LENGTH = 63;
+
+	private final AtomicLong lastTimestamp = new AtomicLong();
+
+	private final long nodeId;
+
+	private final LongSupplier clock;
+
+	TaskIdGenerator() {
+		this(getDefaultNodeId(), System::currentTimeMillis);
+	}
+
+	/**
+	 * Create a generator.
+	 *
+	 * @param nodeId the node id, unique among the generators whose ids must not collide
+	 * @param clock supplies the current time in milliseconds
+	 */
+	TaskIdGenerator(long nodeId, LongSupplier clock) {
+		Assert.isTrue(nodeId >= 0, "The task id node id must not be negative");
+		this.nodeId = nodeId;
+		this.clock = clock;
+	}
+
+	/**
+	 * Generate a new id for a task.
+	 *
+	 * @param name the name of the task
+	 * @return the id, lowercase, without dots and at most 63 characters long, with the name shortened if
+	 * needed, as Kubernetes requires
+	 */
+	String generate(String name) {
+		String hash = new Hashids(name, 0, ALPHABET).encode(nextTimestamp(), this.nodeId);
+		// Kubernetes does not allow . in the name and does not allow uppercase in the name
+		String prefix = name.replace('.', '-').toLowerCase();
+		// the id is used as a label value and a Job name, which are limited to 63 characters
+		int maxPrefixLength = MAX_ID_LENGTH - hash.length() - 1;
+		if (prefix.length() > maxPrefixLength) {
+			prefix = prefix.substring(0, maxPrefixLength);
+		}
+		int end = prefix.length();
+		while (end > 0 && prefix.charAt(end - 1) == '-') {
+			end--;
+		}
+		return end > 0 ? prefix.substring(0, end) + "-" + hash : hash;
+	}
+
+	private static long getDefaultNodeId() {
+		String hostName = System.getenv("HOSTNAME");
+		return StringUtils.hasText(hostName) ? hostName.hashCode() & Integer.MAX_VALUE :
+				ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+	}
+
+	private long nextTimestamp() {
+		long now = this.clock.getAsLong();
+		while (true) {
+			long last = this.lastTimestamp.get();
+			long next = Math.max(last + 1, now);
+			if (this.lastTimestamp.compareAndSet(last, next)) {
+				return next;
+			}
+		}
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StringUtils;
+
+/**
+ * Periodically deletes bare task pods that finished longer ago than a retention window.
+ *
+ * Each sweep pages through the terminal task pods in batches, selected on the server by label and phase, and
+ * deletes the expired ones by name. The client would turn a delete by label selector into a list followed by the
+ * same deletes by name, so selecting the pods up front saves a request per batch. Delete requests are spaced
+ * out to stay under a configured rate. Pods owned by another resource, such as a Job, are left alone.
+ */
+class TaskPodReaper {
+
+	private static final Log logger = LogFactory.getLog(TaskPodReaper.class);
+
+	private static final String[] TERMINAL_PHASES = { "Succeeded", "Failed" };
+
+	private final KubernetesClient client;
+
+	private final long retention;
+
+	private final long sweepInterval;
+
+	private final int batchSize;
+
+	private final long deleteInterval;
+
+	private final AtomicLong reapedCount = new AtomicLong();
+
+	private long lastDeleteTime;
+
+	private ScheduledExecutorService executor;
+
+	/**
+	 * Create a reaper.
+	 *
+	 * @param client the Kubernetes client
+	 * @param retention the time in milliseconds a finished pod is kept
+	 * @param sweepInterval the time in milliseconds between sweeps
+	 * @param batchSize the maximum number of pods listed by one request
+	 * @param deleteRequestsPerSecond the maximum number of delete requests per second
+	 */
+	TaskPodReaper(KubernetesClient client, long retention, long sweepInterval, int batchSize,
+			int deleteRequestsPerSecond) {
+		this.client = client;
+		this.retention = retention;
+		this.sweepInterval = sweepInterval;
+		this.batchSize = Math.max(batchSize, 1);
+		this.deleteInterval = TimeUnit.SECONDS.toMillis(1) / Math.max(deleteRequestsPerSecond, 1);
+	}
+
+	/**
+	 * Start sweeping on the configured interval. Calling this method on a started reaper has no effect.
+	 */
+	synchronized void start() {
+		if (this.executor != null) {
+			return;
+		}
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("task-pod-reaper-");
+		threadFactory.setDaemon(true);
+		this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		this.executor.scheduleWithFixedDelay(this::sweepQuietly, this.sweepInterval, this.sweepInterval,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stop sweeping.
+	 */
+	synchronized void stop() {
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+			this.executor = null;
+		}
+	}
+
+	/**
+	 * @return the number of pods deleted since the reaper was created
+	 */
+	long getReapedCount() {
+		return this.reapedCount.get();
+	}
+
+	/**
+	 * Delete the expired task pods.
+	 *
+	 * @return the number of pods deleted
+	 */
+	int sweep() {
+		long cutoff = System.currentTimeMillis() - this.retention;
+		int deleted = 0;
+		for (String phase : TERMINAL_PHASES) {
+			String continueToken = null;
+			do {
+				PodList pods = this.client.pods().withLabel("task-name").withField("status.phase", phase)
+						.list(new ListOptionsBuilder().withLimit((long) this.batchSize).withContinue(continueToken)
+								.build());
+				deleted += delete(getExpiredPodNames(pods.getItems(), cutoff));
+				continueToken = pods.getMetadata() != null ? pods.getMetadata().getContinue() : null;
+			}
+			while (StringUtils.hasText(continueToken));
+		}
+		if (deleted > 0) {
+			logger.debug(String.format("Deleted %d finished task pods", deleted));
+		}
+		return deleted;
+	}
+
+	private void sweepQuietly() {
+		try {
+			sweep();
+		}
+		catch (KubernetesClientException e) {
+			logger.warn("Sweep of finished task pods failed", e);
+		}
+	}
+
+	private int delete(List<String> podNames) {
+		int deleted = 0;
+		for (String podName : podNames) {
+			if (!throttle()) {
+				break;
+			}
+			if (Boolean.TRUE.equals(this.client.pods().withName(podName).delete())) {
+				deleted++;
+				this.reapedCount.incrementAndGet();
+			}
+		}
+		return deleted;
+	}
+
+	/**
+	 * Wait until the next delete request is allowed.
+	 *
+	 * @return {@code false} if interrupted
+	 */
+	private boolean throttle() {
+		long wait = this.lastDeleteTime + this.deleteInterval - System.currentTimeMillis();
+		if (wait > 0) {
+			try {
+				Thread.sleep(wait);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		this.lastDeleteTime = System.currentTimeMillis();
+		return true;
+	}
+
+	private static List<String> getExpiredPodNames(List<Pod> pods, long cutoff) {
+		List<String> podNames = new ArrayList<>();
+		for (Pod pod : pods) {
+			LaunchState state = KubernetesTaskLauncher.getLaunchState(pod);
+			if (state != LaunchState.complete && state != LaunchState.failed) {
+				continue;
+			}
+			if (pod.getMetadata().getOwnerReferences() != null && !pod.getMetadata().getOwnerReferences().isEmpty()) {
+				continue;
+			}
+			Instant finishedTime = getFinishedTime(pod);
+			if (finishedTime != null && finishedTime.toEpochMilli() < cutoff) {
+				podNames.add(pod.getMetadata().getName());
+			}
+		}
+		return podNames;
+	}
+
+	/**
+	 * Get the time the last container of the pod terminated, or the creation time of the pod if that is not
+	 * known.
+	 */
+	private static Instant getFinishedTime(Pod pod) {
+		Instant finishedTime = null;
+		if (pod.getStatus() != null && pod.getStatus().getContainerStatuses() != null) {
+			for (ContainerStatus containerStatus : pod.getStatus().getContainerStatuses()) {
+				if (containerStatus.getState() != null && containerStatus.getState().getTerminated() != null) {
+					Instant time = parse(containerStatus.getState().getTerminated().getFinishedAt());
+					if (time != null && (finishedTime == null || time.isAfter(finishedTime))) {
+						finishedTime = time;
+					}
+				}
+			}
+		}
+		return finishedTime != null ? finishedTime : parse(pod.getMetadata().getCreationTimestamp());
+	}
+
+	private static Instant parse(String timestamp) {
+		if (timestamp == null) {
+			return null;
+		}
+		try {
+			return Instant.parse(timestamp);
+		}
+		catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+
+/**
+ * Counts the active tasks per quota key, such as a task name or a quota group, so that one busy task definition
+ * cannot take all the slots under the maximum number of concurrent tasks.
+ *
+ * The tasks of a key are listed from the cluster the first time the key is used, and tracked in memory from
+ * then on. A task holds its quotas from the launch until it is cleaned up or found to have finished; finished
+ * tasks are only looked for when a quota is at its limit. The cluster is listed and task states are resolved
+ * without holding the monitor of the tracker, as resolving a state calls back into the task launcher.
+ */
+class TaskQuotas {
+
+	private static final long LAUNCH_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+
+	private final BiFunction<String, String, Map<String, LaunchState>> taskStateLister;
+
+	private final Function<String, LaunchState> launchStateResolver;
+
+	private final Map<String, Map<String, Long>> activeByKey = new HashMap<>();
+
+	private final Map<String, List<Quota>> quotasById = new HashMap<>();
+
+	private final Map<String, Integer> limitsByKey = new LinkedHashMap<>();
+
+	private final AtomicLong rejectionCount = new AtomicLong();
+
+	/**
+	 * Create a quota tracker.
+	 *
+	 * @param taskStateLister lists the states of the tasks by id for a label name and value
+	 * @param launchStateResolver resolves the state of a task by id
+	 */
+	TaskQuotas(BiFunction<String, String, Map<String, LaunchState>> taskStateLister,
+			Function<String, LaunchState> launchStateResolver) {
+		this.taskStateLister = taskStateLister;
+		this.launchStateResolver = launchStateResolver;
+	}
+
+	/**
+	 * Take a slot of each quota for a task, unless one of them is at its limit. Acquiring the quotas a task
+	 * already holds succeeds.
+	 *
+	 * @param taskId the id of the task
+	 * @param quotas the quotas that apply to the task
+	 * @return the quota at its limit, or {@code null} if the task holds all its quotas
+	 */
+	Quota tryAcquire(String taskId, List<Quota> quotas) {
+		seed(quotas);
+		Quota exhausted = acquire(taskId, quotas);
+		if (exhausted != null) {
+			pruneFinished(quotas);
+			exhausted = acquire(taskId, quotas);
+		}
+		if (exhausted != null) {
+			this.rejectionCount.incrementAndGet();
+		}
+		return exhausted;
+	}
+
+	/**
+	 * Find a quota at its limit, without taking a slot.
+	 *
+	 * @param quotas the quotas that apply to a task
+	 * @return the quota at its limit, or {@code null} if all have a free slot
+	 */
+	Quota getExhausted(List<Quota> quotas) {
+		seed(quotas);
+		Quota exhausted = findExhausted(null, quotas);
+		if (exhausted != null) {
+			pruneFinished(quotas);
+			exhausted = findExhausted(null, quotas);
+		}
+		return exhausted;
+	}
+
+	/**
+	 * Give back the quotas of a task, if it holds any.
+	 *
+	 * @param taskId the id of the task
+	 */
+	synchronized void release(String taskId) {
+		List<Quota> quotas = this.quotasById.remove(taskId);
+		if (quotas != null) {
+			for (Quota quota : quotas) {
+				getActive(quota).remove(taskId);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of tasks holding each quota key used so far
+	 */
+	synchronized Map<String, Integer> getUsage() {
+		Map<String, Integer> usage = new LinkedHashMap<>();
+		for (String key : this.limitsByKey.keySet()) {
+			usage.put(key, this.activeByKey.get(key).size());
+		}
+		return usage;
+	}
+
+	/**
+	 * @return the limit of each quota key used so far
+	 */
+	synchronized Map<String, Integer> getLimits() {
+		return new LinkedHashMap<>(this.limitsByKey);
+	}
+
+	/**
+	 * Count a launch held back because a quota was at its limit.
+	 */
+	void recordRejection() {
+		this.rejectionCount.incrementAndGet();
+	}
+
+	/**
+	 * @return the number of launches refused because a quota was at its limit
+	 */
+	long getRejectionCount() {
+		return this.rejectionCount.get();
+	}
+
+	private synchronized Quota acquire(String taskId, List<Quota> quotas) {
+		Quota exhausted = findExhausted(taskId, quotas);
+		if (exhausted == null) {
+			long now = System.currentTimeMillis();
+			for (Quota quota : quotas) {
+				getActive(quota).putIfAbsent(taskId, now);
+			}
+			if (!quotas.isEmpty()) {
+				this.quotasById.put(taskId, quotas);
+			}
+		}
+		return exhausted;
+	}
+
+	private synchronized Quota findExhausted(String taskId, List<Quota> quotas) {
+		for (Quota quota : quotas) {
+			Map<String, Long> active = getActive(quota);
+			if (taskId != null && active.containsKey(taskId)) {
+				continue;
+			}
+			if (active.size() >= quota.getLimit()) {
+				return quota;
+			}
+		}
+		return null;
+	}
+
+	private Map<String, Long> getActive(Quota quota) {
+		this.limitsByKey.put(quota.getKey(), quota.getLimit());
+		return this.activeByKey.computeIfAbsent(quota.getKey(), key -> new HashMap<>());
+	}
+
+	/**
+	 * Count the active tasks of the quota keys used for the first time, by listing them from the cluster
+	 * without holding the monitor.
+	 */
+	private void seed(List<Quota> quotas) {
+		for (Quota quota : quotas) {
+			synchronized (this) {
+				if (this.activeByKey.containsKey(quota.getKey())) {
+					continue;
+				}
+			}
+			Map<String, LaunchState> states = this.taskStateLister.apply(quota.getLabel(), quota.getValue());
+			synchronized (this) {
+				if (!this.activeByKey.containsKey(quota.getKey())) {
+					Map<String, Long> active = getActive(quota);
+					states.forEach((id, state) -> {
+						if (isActive(state)) {
+							active.put(id, 0L);
+						}
+					});
+				}
+			}
+		}
+	}
+
+	/**
+	 * Forget the tasks holding a quota at its limit that have finished, or whose launch did not show up in
+	 * time. The tasks are taken under the monitor, but their states are resolved without holding it, as that
+	 * calls the API server and the task launcher.
+	 */
+	private void pruneFinished(List<Quota> quotas) {
+		Map<String, Long> candidates = new HashMap<>();
+		synchronized (this) {
+			for (Quota quota : quotas) {
+				Map<String, Long> active = getActive(quota);
+				if (active.size() >= quota.getLimit()) {
+					candidates.putAll(active);
+				}
+			}
+		}
+		long now = System.currentTimeMillis();
+		List<String> finished = new ArrayList<>();
+		for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+			LaunchState state = this.launchStateResolver.apply(candidate.getKey());
+			boolean launchTimedOut = state == LaunchState.unknown && now - candidate.getValue() > LAUNCH_TIMEOUT;
+			if (launchTimedOut || (state != LaunchState.unknown && !isActive(state))) {
+				finished.add(candidate.getKey());
+			}
+		}
+		if (!finished.isEmpty()) {
+			synchronized (this) {
+				for (String taskId : finished) {
+					this.quotasById.remove(taskId);
+					for (Map<String, Long> active : this.activeByKey.values()) {
+						active.remove(taskId);
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean isActive(LaunchState state) {
+		return state == LaunchState.launching || state == LaunchState.running;
+	}
+
+	/**
+	 * A limit on the number of concurrent tasks carrying a label value.
+	 */
+	static final class Quota {
+
+		private final String label;
+
+		private final String value;
+
+		private final int limit;
+
+		Quota(String label, String value, int limit) {
+			this.label = label;
+			this.value = value;
+			this.limit = limit;
+		}
+
+		String getLabel() {
+			return this.label;
+		}
+
+		String getValue() {
+			return this.value;
+		}
+
+		int getLimit() {
+			return this.limit;
+		}
+
+		String getKey() {
+			return this.label + "=" + this.value;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("quota [%s] is at its limit [%d]", getKey(), this.limit);
+		}
+	}
+}
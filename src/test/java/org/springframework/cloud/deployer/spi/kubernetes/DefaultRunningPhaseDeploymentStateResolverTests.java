@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import io.fabric8.kubernetes.api.model.ContainerStatus;
+import io.fabric8.kubernetes.api.model.ContainerStatusBuilder;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.app.DeploymentState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link DefaultRunningPhaseDeploymentStateResolver}.
+ */
+public class DefaultRunningPhaseDeploymentStateResolverTests {
+
+	private final DefaultRunningPhaseDeploymentStateResolver resolver =
+			new DefaultRunningPhaseDeploymentStateResolver(new KubernetesDeployerProperties());
+
+	@Test
+	public void readyContainerIsDeployed() {
+		assertThat(resolver.resolve(new ContainerStatusBuilder().withReady(true).withRestartCount(0).build()))
+				.isEqualTo(DeploymentState.deployed);
+	}
+
+	@Test
+	public void missingFieldsResolveToDeployingInsteadOfFailing() {
+		assertThat(resolver.resolve(new ContainerStatus())).isEqualTo(DeploymentState.deploying);
+		assertThat(resolver.resolve(new ContainerStatusBuilder().withReady(false).build()))
+				.isEqualTo(DeploymentState.deploying);
+	}
+
+	@Test
+	public void repeatedlyKilledContainerIsFailed() {
+		ContainerStatus containerStatus = new ContainerStatusBuilder().withReady(false).withRestartCount(5)
+				.withNewLastState().withNewTerminated().withExitCode(137).endTerminated().endLastState()
+				.build();
+		assertThat(resolver.resolve(containerStatus)).isEqualTo(DeploymentState.failed);
+	}
+
+	@Test
+	public void restartsDueToTheSameErrorAreFailed() {
+		ContainerStatus containerStatus = new ContainerStatusBuilder().withReady(false).withRestartCount(5)
+				.withNewLastState().withNewTerminated().withExitCode(2).withReason("Error").endTerminated()
+				.endLastState()
+				.withNewState().withNewTerminated().withExitCode(2).withReason("Error").endTerminated().endState()
+				.build();
+		assertThat(resolver.resolve(containerStatus)).isEqualTo(DeploymentState.failed);
+	}
+
+	@Test
+	public void restartsWithoutCurrentTerminationAreNotFailed() {
+		ContainerStatus containerStatus = new ContainerStatusBuilder().withReady(false).withRestartCount(5)
+				.withNewLastState().withNewTerminated().withExitCode(2).withReason("Error").endTerminated()
+				.endLastState()
+				.build();
+		assertThat(resolver.resolve(containerStatus)).isEqualTo(DeploymentState.deploying);
+	}
+
+	@Test
+	public void crashLoopBackOffIsFailed() {
+		ContainerStatus containerStatus = new ContainerStatusBuilder().withReady(false).withRestartCount(5)
+				.withNewLastState().withNewTerminated().withExitCode(2).endTerminated().endLastState()
+				.withNewState().withNewWaiting().withReason("CrashLoopBackOff").endWaiting().endState()
+				.build();
+		assertThat(resolver.resolve(containerStatus)).isEqualTo(DeploymentState.failed);
+	}
+
+	@Test
+	public void terminatedContainerWithoutRestartsIsUndeployed() {
+		ContainerStatus containerStatus = new ContainerStatusBuilder().withReady(false).withRestartCount(0)
+				.withNewState().withNewTerminated().withExitCode(0).endTerminated().endState()
+				.build();
+		assertThat(resolver.resolve(containerStatus)).isEqualTo(DeploymentState.undeployed);
+	}
+}
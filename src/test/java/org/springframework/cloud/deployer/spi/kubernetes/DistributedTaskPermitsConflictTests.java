@@ -0,0 +1,74 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the optimistic concurrency of {@link DistributedTaskPermits}, run against a mock API server.
+ */
+public class DistributedTaskPermitsConflictTests {
+
+	private static final String PATH = "/api/v1/namespaces/test/configmaps/task-permits";
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, false);
+
+	@Test
+	public void conflictingUpdateIsRetriedAgainstTheLatestPermits() throws Exception {
+		long expiry = System.currentTimeMillis() + 60000;
+		server.expect().get().withPath(PATH).andReturn(200, configMap("1")).once();
+		server.expect().put().withPath(PATH).andReturn(409, new StatusBuilder().withCode(409)
+				.withReason("Conflict").build()).once();
+		server.expect().get().withPath(PATH).andReturn(200, configMap("2", "other-task", "other/" + expiry)).once();
+
+		DistributedTaskPermits permits = new DistributedTaskPermits(server.getClient(), "task-permits", () -> 1,
+				60000, 60000, "launcher", id -> LaunchState.running);
+		try {
+			assertThat(permits.tryAcquire("task")).isFalse();
+			assertThat(permits.getConflictCount()).isEqualTo(1);
+		}
+		finally {
+			permits.stop();
+		}
+
+		assertThat(server.getMockServer().getRequestCount()).isEqualTo(3);
+		assertThat(server.getMockServer().takeRequest().getMethod()).isEqualTo("GET");
+		RecordedRequest put = server.getMockServer().takeRequest();
+		assertThat(put.getMethod()).isEqualTo("PUT");
+		assertThat(put.getBody().readUtf8()).contains("\"resourceVersion\":\"1\"");
+	}
+
+	private static ConfigMap configMap(String resourceVersion, String... permits) {
+		ConfigMapBuilder builder = new ConfigMapBuilder().withNewMetadata().withName("task-permits")
+				.withNamespace("test").withResourceVersion(resourceVersion).endMetadata();
+		for (int i = 0; i < permits.length; i += 2) {
+			builder.addToData(permits[i], permits[i + 1]);
+		}
+		return builder.build();
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.resource.docker.DockerResource;
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.deployer.spi.core.AppDeploymentRequest;
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link DistributedTaskPermits} and the distributed permits of {@link KubernetesTaskLauncher}, run
+ * against a mock API server.
+ */
+public class DistributedTaskPermitsTests {
+
+	private static final String CONFIG_MAP_NAME = "task-permits";
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, true);
+
+	private KubernetesClient client;
+
+	@Before
+	public void setUp() {
+		this.client = server.getClient();
+	}
+
+	@Test
+	public void launchersNeverExceedTheLimit() {
+		List<DistributedTaskPermits> permits = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			permits.add(permits("launcher-" + i, 10, 60000, id -> LaunchState.running));
+		}
+		int acquired = 0;
+		try {
+			for (int i = 0; i < 24; i++) {
+				if (permits.get(i % permits.size()).tryAcquire("task-" + i)) {
+					acquired++;
+				}
+			}
+		}
+		finally {
+			permits.forEach(DistributedTaskPermits::stop);
+		}
+
+		assertThat(acquired).isEqualTo(10);
+		assertThat(client.configMaps().withName(CONFIG_MAP_NAME).get().getData()).hasSize(10);
+		assertThat(permits.get(0).getHeldCount()).isEqualTo(10);
+	}
+
+	@Test
+	public void permitsOfAStoppedLauncherExpire() throws Exception {
+		DistributedTaskPermits crashed = permits("crashed", 1, 1000, id -> LaunchState.running);
+		DistributedTaskPermits survivor = permits("survivor", 1, 60000, id -> LaunchState.running);
+		try {
+			assertThat(crashed.tryAcquire("task-1")).isTrue();
+			crashed.stop();
+			assertThat(survivor.tryAcquire("task-2")).isFalse();
+
+			Thread.sleep(1500);
+
+			assertThat(survivor.tryAcquire("task-2")).isTrue();
+			assertThat(client.configMaps().withName(CONFIG_MAP_NAME).get().getData()).containsOnlyKeys("task-2");
+		}
+		finally {
+			survivor.stop();
+		}
+	}
+
+	@Test
+	public void renewDoesNotRestorePermitsTakenAfterTheyExpired() throws Exception {
+		DistributedTaskPermits partitioned = permits("partitioned", 1, 1000, id -> LaunchState.running);
+		DistributedTaskPermits other = permits("other", 1, 60000, id -> LaunchState.running);
+		try {
+			assertThat(partitioned.tryAcquire("task-1")).isTrue();
+
+			Thread.sleep(1100);
+			assertThat(other.tryAcquire("task-2")).isTrue();
+			partitioned.renew();
+
+			assertThat(client.configMaps().withName(CONFIG_MAP_NAME).get().getData()).containsOnlyKeys("task-2");
+			assertThat(partitioned.getHeldCount()).isEqualTo(1);
+			assertThat(partitioned.tryAcquire("task-1")).isFalse();
+		}
+		finally {
+			partitioned.stop();
+			other.stop();
+		}
+	}
+
+	@Test
+	public void renewReleasesThePermitsOfFinishedTasks() {
+		DistributedTaskPermits permits = permits("launcher", 2, 60000,
+				id -> id.equals("finished") ? LaunchState.complete : LaunchState.running);
+		try {
+			assertThat(permits.tryAcquire("finished")).isTrue();
+			assertThat(permits.tryAcquire("running")).isTrue();
+			assertThat(permits.tryAcquire("running")).isTrue();
+			assertThat(permits.getHeldCount()).isEqualTo(2);
+
+			permits.renew();
+
+			assertThat(client.configMaps().withName(CONFIG_MAP_NAME).get().getData()).containsOnlyKeys("running");
+		}
+		finally {
+			permits.stop();
+		}
+	}
+
+	@Test
+	public void renewKeepsThePermitsOfTasksNotCreatedYet() throws Exception {
+		DistributedTaskPermits permits = permits("launcher", 2, 1000, id -> LaunchState.unknown);
+		try {
+			assertThat(permits.tryAcquire("task-1")).isTrue();
+
+			permits.renew();
+
+			assertThat(client.configMaps().withName(CONFIG_MAP_NAME).get().getData()).containsOnlyKeys("task-1");
+
+			Thread.sleep(1100);
+			permits.renew();
+
+			assertThat(client.configMaps().withName(CONFIG_MAP_NAME).get().getData()).isEmpty();
+		}
+		finally {
+			permits.stop();
+		}
+	}
+
+	@Test
+	public void launchersShareTheLimit() {
+		KubernetesDeployerProperties deployerProperties = new KubernetesDeployerProperties();
+		deployerProperties.setMaximumConcurrentTasks(1);
+		KubernetesTaskLauncherProperties taskLauncherProperties = new KubernetesTaskLauncherProperties();
+		taskLauncherProperties.getDistributedPermits().setEnabled(true);
+		KubernetesTaskLauncher launcher1 = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties,
+				client);
+		KubernetesTaskLauncher launcher2 = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties,
+				client);
+		try {
+			String id = launcher1.launch(request());
+			assertThatThrownBy(() -> launcher2.launch(request()))
+					.isInstanceOf(IllegalStateException.class)
+					.hasMessageContaining("maximum concurrent task executions is at its limit [1]");
+
+			launcher1.cleanup(id);
+			assertThat(launcher2.launch(request())).isNotNull();
+		}
+		finally {
+			launcher1.destroy();
+			launcher2.destroy();
+		}
+	}
+
+	private DistributedTaskPermits permits(String holderId, int maximumPermits, long leaseDuration,
+			Function<String, LaunchState> launchStateResolver) {
+		return new DistributedTaskPermits(client, CONFIG_MAP_NAME, () -> maximumPermits, leaseDuration, 60000,
+				holderId, launchStateResolver);
+	}
+
+	private static AppDeploymentRequest request() {
+		return new AppDeploymentRequest(new AppDefinition("task", Collections.emptyMap()),
+				new DockerResource("springcloud/spring-cloud-deployer-spi-test-app:latest"));
+	}
+}
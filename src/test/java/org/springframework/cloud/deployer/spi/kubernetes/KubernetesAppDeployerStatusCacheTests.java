@@ -0,0 +1,128 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.function.Supplier;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.app.AppStatus;
+import org.springframework.cloud.deployer.spi.app.DeploymentState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the watch-driven status cache of {@link KubernetesAppDeployer}, run against a mock API server.
+ */
+public class KubernetesAppDeployerStatusCacheTests {
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, true);
+
+	private KubernetesClient client;
+
+	private KubernetesAppDeployer deployer;
+
+	@Before
+	public void setUp() {
+		this.client = server.getClient();
+		KubernetesDeployerProperties properties = new KubernetesDeployerProperties();
+		properties.getStatusCache().setEnabled(true);
+		this.deployer = new KubernetesAppDeployer(properties, this.client);
+	}
+
+	@After
+	public void tearDown() {
+		this.deployer.destroy();
+	}
+
+	@Test
+	public void statusIsAnsweredFromCacheWithoutApiCalls() {
+		client.pods().create(pod("app1-pod", "app1", "Running", true));
+		client.services().create(new ServiceBuilder().withNewMetadata().withName("app1")
+				.addToLabels(AbstractKubernetesDeployer.SPRING_APP_KEY, "app1")
+				.addToLabels(AbstractKubernetesDeployer.SPRING_MARKER_KEY, AbstractKubernetesDeployer.SPRING_MARKER_VALUE)
+				.endMetadata().withNewSpec().withType("ClusterIP").endSpec().build());
+
+		AppStatus status = deployer.status("app1");
+		assertThat(status.getState()).isEqualTo(DeploymentState.deployed);
+		assertThat(status.getInstances().get("app1-pod").getAttributes()).containsEntry("service.name", "app1");
+
+		int requestCount = server.getMockServer().getRequestCount();
+		for (int i = 0; i < 10; i++) {
+			assertThat(deployer.status("app1").getState()).isEqualTo(DeploymentState.deployed);
+			assertThat(deployer.status("unknown-app").getState()).isEqualTo(DeploymentState.unknown);
+		}
+		assertThat(server.getMockServer().getRequestCount()).isEqualTo(requestCount);
+	}
+
+	@Test
+	public void statusFollowsWatchEvents() {
+		client.pods().create(pod("app2-pod", "app2", "Pending", false));
+
+		assertThat(deployer.status("app2").getState()).isEqualTo(DeploymentState.deploying);
+
+		client.pods().withName("app2-pod").replace(pod("app2-pod", "app2", "Running", true));
+		awaitState(() -> deployer.status("app2"), DeploymentState.deployed);
+
+		client.pods().withName("app2-pod").delete();
+		awaitState(() -> deployer.status("app2"), DeploymentState.unknown);
+	}
+
+	@Test
+	public void podsWithoutMarkerLabelAreNotCached() {
+		Pod pod = pod("app3-pod", "app3", "Running", true);
+		pod.getMetadata().getLabels().remove(AbstractKubernetesDeployer.SPRING_MARKER_KEY);
+		client.pods().create(pod);
+
+		assertThat(deployer.status("app3").getState()).isEqualTo(DeploymentState.unknown);
+	}
+
+	static Pod pod(String name, String appId, String phase, boolean ready) {
+		return new PodBuilder().withNewMetadata().withName(name)
+				.addToLabels(AbstractKubernetesDeployer.SPRING_APP_KEY, appId)
+				.addToLabels(AbstractKubernetesDeployer.SPRING_DEPLOYMENT_KEY, appId)
+				.addToLabels(AbstractKubernetesDeployer.SPRING_MARKER_KEY, AbstractKubernetesDeployer.SPRING_MARKER_VALUE)
+				.endMetadata()
+				.withNewSpec().addNewContainer().withName(appId)
+				.addNewEnv().withName("SPRING_CLOUD_APPLICATION_GUID").withValue(name).endEnv()
+				.endContainer().endSpec()
+				.withNewStatus().withPhase(phase)
+				.addNewContainerStatus().withName(appId).withReady(ready).withRestartCount(0).endContainerStatus()
+				.endStatus().build();
+	}
+
+	static void awaitState(Supplier<AppStatus> status, DeploymentState expected) {
+		for (int i = 0; i < 50 && status.get().getState() != expected; i++) {
+			try {
+				Thread.sleep(100);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		assertThat(status.get().getState()).isEqualTo(expected);
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.app.AppStatus;
+import org.springframework.cloud.deployer.spi.app.DeploymentState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.deployer.spi.kubernetes.KubernetesAppDeployerStatusCacheTests.pod;
+
+/**
+ * Tests for the watch-driven status listener API of {@link KubernetesAppDeployer}, run against a mock API
+ * server.
+ */
+public class KubernetesAppDeployerStatusListenerTests {
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, true);
+
+	private KubernetesClient client;
+
+	private KubernetesAppDeployer deployer;
+
+	@Before
+	public void setUp() {
+		this.client = server.getClient();
+		this.deployer = new KubernetesAppDeployer(new KubernetesDeployerProperties(), this.client);
+	}
+
+	@After
+	public void tearDown() {
+		this.deployer.destroy();
+	}
+
+	@Test
+	public void listenerIsNotifiedOnlyWhenInstanceStateChanges() throws Exception {
+		BlockingQueue<AppStatus> changes = new LinkedBlockingQueue<>();
+		Consumer<AppStatus> listener = changes::add;
+		deployer.addStatusListener(listener);
+
+		client.pods().create(pod("app1-pod", "app1", "Pending", false));
+		assertThat(changes.poll(5, TimeUnit.SECONDS).getState()).isEqualTo(DeploymentState.deploying);
+
+		Pod relabelled = pod("app1-pod", "app1", "Pending", false);
+		relabelled.getMetadata().getLabels().put("unrelated", "change");
+		client.pods().withName("app1-pod").replace(relabelled);
+		client.pods().withName("app1-pod").replace(pod("app1-pod", "app1", "Running", true));
+		AppStatus status = changes.poll(5, TimeUnit.SECONDS);
+		assertThat(status.getDeploymentId()).isEqualTo("app1");
+		assertThat(status.getState()).isEqualTo(DeploymentState.deployed);
+
+		client.pods().withName("app1-pod").delete();
+		assertThat(changes.poll(5, TimeUnit.SECONDS).getState()).isEqualTo(DeploymentState.unknown);
+
+		deployer.removeStatusListener(listener);
+		client.pods().create(pod("app1-pod", "app1", "Pending", false));
+		assertThat(changes.poll(500, TimeUnit.MILLISECONDS)).isNull();
+	}
+
+	@Test
+	public void statusChangesEmitsDeltas() {
+		client.pods().create(pod("app2-pod", "app2", "Running", true));
+
+		AppStatus status = deployer.statusChanges()
+				.doOnSubscribe(subscription -> client.pods().create(pod("app3-pod", "app3", "Pending", false)))
+				.filter(change -> change.getDeploymentId().equals("app3"))
+				.blockFirst(Duration.ofSeconds(5));
+		assertThat(status.getState()).isEqualTo(DeploymentState.deploying);
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import io.fabric8.kubernetes.api.model.PodListBuilder;
+import io.fabric8.kubernetes.api.model.ServiceListBuilder;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.app.AppStatus;
+import org.springframework.cloud.deployer.spi.app.DeploymentState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.deployer.spi.kubernetes.KubernetesAppDeployerStatusCacheTests.pod;
+
+/**
+ * Tests for the bulk status API of {@link KubernetesAppDeployer}, run against a mock API server.
+ */
+public class KubernetesAppDeployerStatusesTests {
+
+	private static final String SELECTOR_PATH = "?labelSelector=spring-app-id%20in%20%28app1%2Capp2%2Capp3%29";
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, false);
+
+	private KubernetesAppDeployer deployer;
+
+	@Before
+	public void setUp() {
+		this.deployer = new KubernetesAppDeployer(new KubernetesDeployerProperties(), server.getClient());
+	}
+
+	@Test
+	public void statusesUseOneListPerResourceType() {
+		server.expect().get().withPath("/api/v1/namespaces/test/pods" + SELECTOR_PATH)
+				.andReturn(200, new PodListBuilder().addToItems(pod("app1-pod-1", "app1", "Running", true),
+						pod("app1-pod-2", "app1", "Running", true), pod("app2-pod", "app2", "Pending", false))
+						.build())
+				.once();
+		server.expect().get().withPath("/api/v1/namespaces/test/services" + SELECTOR_PATH)
+				.andReturn(200, new ServiceListBuilder().build()).once();
+
+		Map<String, AppStatus> statuses = deployer.statuses(Arrays.asList("app1", "app2", "app3"));
+		assertThat(server.getMockServer().getRequestCount()).isEqualTo(2);
+
+		assertThat(statuses).containsOnlyKeys("app1", "app2", "app3");
+		assertThat(statuses.get("app1").getState()).isEqualTo(DeploymentState.deployed);
+		assertThat(statuses.get("app1").getInstances()).containsOnlyKeys("app1-pod-1", "app1-pod-2");
+		assertThat(statuses.get("app2").getState()).isEqualTo(DeploymentState.deploying);
+		assertThat(statuses.get("app3").getState()).isEqualTo(DeploymentState.unknown);
+	}
+
+	@Test
+	public void statusesReactivePreservesOrder() {
+		server.expect().get().withPath("/api/v1/namespaces/test/pods"
+				+ "?labelSelector=spring-app-id%20in%20%28app2%2Capp1%29")
+				.andReturn(200, new PodListBuilder().addToItems(pod("app1-pod", "app1", "Running", true),
+						pod("app2-pod", "app2", "Pending", false)).build())
+				.once();
+		server.expect().get().withPath("/api/v1/namespaces/test/services"
+				+ "?labelSelector=spring-app-id%20in%20%28app2%2Capp1%29")
+				.andReturn(200, new ServiceListBuilder().build()).once();
+
+		List<String> deploymentIds = deployer.statusesReactive("app2", "app1").map(AppStatus::getDeploymentId)
+				.collectList().block();
+		assertThat(deploymentIds).containsExactly("app2", "app1");
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.apps.StatefulSetBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.app.AppStatus;
+import org.springframework.cloud.deployer.spi.app.DeploymentState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.deployer.spi.kubernetes.KubernetesAppDeployerStatusCacheTests.pod;
+
+/**
+ * Tests for the summary status mode of {@link KubernetesAppDeployer}, run against a mock API server.
+ */
+public class KubernetesAppDeployerSummaryStatusTests {
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, true);
+
+	private KubernetesClient client;
+
+	private KubernetesAppDeployer deployer;
+
+	@Before
+	public void setUp() {
+		this.client = server.getClient();
+		KubernetesDeployerProperties properties = new KubernetesDeployerProperties();
+		properties.setSummaryStatus(true);
+		this.deployer = new KubernetesAppDeployer(properties, this.client);
+	}
+
+	@Test
+	public void readyDeploymentIsSummarizedWithoutListingPods() {
+		client.apps().deployments().create(deployment("app1", 3, 3));
+		client.pods().create(pod("app1-pod", "app1", "Running", true));
+
+		int requestCount = server.getMockServer().getRequestCount();
+		AppStatus status = deployer.status("app1");
+		assertThat(server.getMockServer().getRequestCount()).isEqualTo(requestCount + 1);
+		assertThat(status.getState()).isEqualTo(DeploymentState.deployed);
+		assertThat(status.getInstances()).isEmpty();
+	}
+
+	@Test
+	public void degradedDeploymentFallsBackToPods() {
+		client.apps().deployments().create(deployment("app2", 2, 1));
+		client.pods().create(pod("app2-pod-1", "app2", "Running", true));
+		client.pods().create(pod("app2-pod-2", "app2", "Pending", false));
+
+		AppStatus status = deployer.status("app2");
+		assertThat(status.getState()).isEqualTo(DeploymentState.deploying);
+		assertThat(status.getInstances()).containsOnlyKeys("app2-pod-1", "app2-pod-2");
+	}
+
+	@Test
+	public void readyStatefulSetIsSummarized() {
+		client.apps().statefulSets().create(new StatefulSetBuilder().withNewMetadata().withName("app3").endMetadata()
+				.withNewSpec().withReplicas(2).endSpec()
+				.withNewStatus().withReplicas(2).withReadyReplicas(2).withCurrentRevision("r1").withUpdateRevision("r1")
+				.endStatus().build());
+
+		assertThat(deployer.status("app3").getState()).isEqualTo(DeploymentState.deployed);
+	}
+
+	@Test
+	public void missingWorkloadFallsBackToPods() {
+		assertThat(deployer.status("app4").getState()).isEqualTo(DeploymentState.unknown);
+	}
+
+	private static Deployment deployment(String name, int replicas, int readyReplicas) {
+		return new DeploymentBuilder().withNewMetadata().withName(name).endMetadata()
+				.withNewSpec().withReplicas(replicas).endSpec()
+				.withNewStatus().withReplicas(replicas).withUpdatedReplicas(replicas).withReadyReplicas(readyReplicas)
+				.withAvailableReplicas(readyReplicas)
+				.addNewCondition().withType("Available").withStatus(readyReplicas == replicas ? "True" : "False")
+				.endCondition()
+				.endStatus().build();
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.fabric8.kubernetes.api.model.batch.CronJob;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.resource.docker.DockerResource;
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.deployer.spi.scheduler.ScheduleRequest;
+import org.springframework.cloud.deployer.spi.scheduler.SchedulerPropertyKeys;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the spec hash based apply of {@link KubernetesScheduler}, run against a mock API server.
+ */
+public class KubernetesSchedulerApplyTests {
+
+	private static final String SPEC_HASH_ANNOTATION = "spring-cronjob-spec-hash";
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, true);
+
+	private KubernetesClient client;
+
+	private KubernetesScheduler scheduler;
+
+	@Before
+	public void setUp() {
+		this.client = server.getClient();
+		this.scheduler = new KubernetesScheduler(this.client, new KubernetesSchedulerProperties());
+	}
+
+	@Test
+	public void scheduleStampsTheSpecHash() {
+		scheduler.schedule(scheduleRequest("0/10 * * * *", Collections.emptyMap()));
+
+		CronJob cronJob = client.batch().cronjobs().withName("schedule1").get();
+		assertThat(cronJob.getMetadata().getAnnotations().get(SPEC_HASH_ANNOTATION))
+				.isEqualTo(KubernetesScheduler.computeSpecHash(cronJob));
+	}
+
+	@Test
+	public void applyCreatesAMissingSchedule() {
+		assertThat(scheduler.apply(scheduleRequest("0/10 * * * *", Collections.emptyMap()))).isTrue();
+
+		assertThat(client.batch().cronjobs().withName("schedule1").get().getSpec().getSchedule())
+				.isEqualTo("0/10 * * * *");
+	}
+
+	@Test
+	public void applyOfAnUnchangedScheduleOnlyReads() throws InterruptedException {
+		scheduler.apply(scheduleRequest("0/10 * * * *", Collections.singletonMap("app.task1.foo", "bar")));
+		takeRequests();
+
+		assertThat(scheduler.apply(scheduleRequest("0/10 * * * *", Collections.singletonMap("app.task1.foo",
+				"bar")))).isFalse();
+
+		assertThat(takeRequests()).extracting(RecordedRequest::getMethod).containsExactly("GET");
+	}
+
+	@Test
+	public void applyPatchesAChangedScheduleInPlace() throws InterruptedException {
+		scheduler.apply(scheduleRequest("0/10 * * * *", Collections.emptyMap()));
+		CronJob original = client.batch().cronjobs().withName("schedule1").get();
+		takeRequests();
+
+		assertThat(scheduler.apply(scheduleRequest("0/5 * * * *", Collections.emptyMap()))).isTrue();
+
+		assertThat(takeRequests()).extracting(RecordedRequest::getMethod).doesNotContain("DELETE", "POST")
+				.contains("PATCH");
+		CronJob patched = client.batch().cronjobs().withName("schedule1").get();
+		assertThat(patched.getSpec().getSchedule()).isEqualTo("0/5 * * * *");
+		assertThat(patched.getMetadata().getAnnotations().get(SPEC_HASH_ANNOTATION))
+				.isNotEqualTo(original.getMetadata().getAnnotations().get(SPEC_HASH_ANNOTATION))
+				.isEqualTo(KubernetesScheduler.computeSpecHash(patched));
+	}
+
+	@Test
+	public void specHashOnlyDependsOnTheContent() {
+		Map<String, String> jobAnnotations = new HashMap<>();
+		jobAnnotations.put("spring.cloud.deployer.kubernetes.jobAnnotations", "a:1,b:2");
+		Map<String, String> reorderedJobAnnotations = new HashMap<>();
+		reorderedJobAnnotations.put("spring.cloud.deployer.kubernetes.jobAnnotations", "b:2,a:1");
+
+		String hash = specHash(scheduleRequest("0/10 * * * *", jobAnnotations));
+
+		assertThat(specHash(scheduleRequest("0/10 * * * *", reorderedJobAnnotations))).isEqualTo(hash);
+		assertThat(specHash(scheduleRequest("0/5 * * * *", jobAnnotations))).isNotEqualTo(hash);
+	}
+
+	private String specHash(ScheduleRequest scheduleRequest) {
+		scheduleRequest.setSchedulerProperties(KubernetesScheduler.mergeSchedulerProperties(scheduleRequest));
+		return scheduler.buildCronJob(scheduleRequest).getMetadata().getAnnotations().get(SPEC_HASH_ANNOTATION);
+	}
+
+	private List<RecordedRequest> takeRequests() throws InterruptedException {
+		List<RecordedRequest> requests = new ArrayList<>();
+		RecordedRequest recorded;
+		while ((recorded = server.getMockServer().takeRequest(100, TimeUnit.MILLISECONDS)) != null) {
+			requests.add(recorded);
+		}
+		return requests;
+	}
+
+	private static ScheduleRequest scheduleRequest(String cronExpression, Map<String, String> deploymentProperties) {
+		return new ScheduleRequest(new AppDefinition("task1", Collections.emptyMap()),
+				Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, cronExpression),
+				deploymentProperties, Collections.emptyList(), "schedule1",
+				new DockerResource("springcloud/spring-cloud-deployer-spi-test-app:latest"));
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.resource.docker.DockerResource;
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.deployer.spi.scheduler.CreateScheduleException;
+import org.springframework.cloud.deployer.spi.scheduler.ScheduleInfo;
+import org.springframework.cloud.deployer.spi.scheduler.ScheduleRequest;
+import org.springframework.cloud.deployer.spi.scheduler.SchedulerException;
+import org.springframework.cloud.deployer.spi.scheduler.SchedulerPropertyKeys;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the batch schedule and unschedule of {@link KubernetesScheduler}, run against a mock API server.
+ */
+public class KubernetesSchedulerBatchTests {
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, true);
+
+	private KubernetesClient client;
+
+	private KubernetesScheduler scheduler;
+
+	@Before
+	public void setUp() {
+		this.client = server.getClient();
+		KubernetesSchedulerProperties schedulerProperties = new KubernetesSchedulerProperties();
+		schedulerProperties.setBatchParallelism(4);
+		this.scheduler = new KubernetesScheduler(this.client, schedulerProperties);
+	}
+
+	@Test
+	public void batchScheduleCreatesAllCronJobs() {
+		List<ScheduleRequest> scheduleRequests = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			scheduleRequests.add(scheduleRequest("schedule-" + i));
+		}
+
+		List<BatchResult> results = scheduler.schedule(scheduleRequests);
+
+		assertThat(results).hasSize(20).allMatch(BatchResult::isSuccess);
+		assertThat(results.get(7).getId()).isEqualTo("schedule-7");
+		assertThat(client.batch().cronjobs().list().getItems()).hasSize(20);
+		assertThat(scheduler.list("task1")).extracting(ScheduleInfo::getScheduleName).contains("schedule-19");
+	}
+
+	@Test
+	public void invalidScheduleNamesFailWithoutHoldingBackTheOthers() {
+		List<BatchResult> results = scheduler.schedule(Arrays.asList(scheduleRequest("schedule-1"),
+				scheduleRequest("Invalid_Name"), scheduleRequest("schedule-2")));
+
+		assertThat(results.get(0).isSuccess()).isTrue();
+		assertThat(results.get(1).getId()).isEqualTo("Invalid_Name");
+		assertThat(results.get(1).getError()).isInstanceOf(CreateScheduleException.class)
+				.hasMessageContaining("Invalid Format for Schedule Name");
+		assertThat(results.get(2).isSuccess()).isTrue();
+		assertThat(client.batch().cronjobs().list().getItems()).hasSize(2);
+	}
+
+	@Test
+	public void batchUnscheduleReportsMissingSchedules() {
+		scheduler.schedule(Arrays.asList(scheduleRequest("schedule-1"), scheduleRequest("schedule-2")));
+
+		List<BatchResult> results = scheduler.unschedule(Arrays.asList("schedule-1", "missing", "schedule-2"));
+
+		assertThat(results).extracting(BatchResult::getId).containsExactly("schedule-1", "missing", "schedule-2");
+		assertThat(results.get(0).isSuccess()).isTrue();
+		assertThat(results.get(1).getError()).isInstanceOf(SchedulerException.class)
+				.hasMessageContaining("missing does not exist");
+		assertThat(results.get(2).isSuccess()).isTrue();
+		assertThat(client.batch().cronjobs().list().getItems()).isEmpty();
+	}
+
+	private static ScheduleRequest scheduleRequest(String scheduleName) {
+		return new ScheduleRequest(new AppDefinition("task1", Collections.emptyMap()),
+				Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "0/10 * * * *"),
+				Collections.emptyMap(), Collections.emptyList(), scheduleName,
+				new DockerResource("springcloud/spring-cloud-deployer-spi-test-app:latest"));
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.Collections;
+
+import io.fabric8.kubernetes.api.model.batch.CronJob;
+import io.fabric8.kubernetes.api.model.batch.CronJobBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.resource.docker.DockerResource;
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.deployer.spi.scheduler.ScheduleInfo;
+import org.springframework.cloud.deployer.spi.scheduler.ScheduleRequest;
+import org.springframework.cloud.deployer.spi.scheduler.SchedulerException;
+import org.springframework.cloud.deployer.spi.scheduler.SchedulerPropertyKeys;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the watch-driven schedule cache of {@link KubernetesScheduler}, run against a mock API server.
+ */
+public class KubernetesSchedulerCacheTests {
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, true);
+
+	private KubernetesClient client;
+
+	private KubernetesScheduler scheduler;
+
+	@Before
+	public void setUp() {
+		this.client = server.getClient();
+		KubernetesSchedulerProperties schedulerProperties = new KubernetesSchedulerProperties();
+		schedulerProperties.getScheduleCache().setEnabled(true);
+		this.scheduler = new KubernetesScheduler(this.client, schedulerProperties);
+	}
+
+	@After
+	public void tearDown() {
+		this.scheduler.destroy();
+	}
+
+	@Test
+	public void listsAreAnsweredFromTheCache() {
+		client.batch().cronjobs().create(cronJob("schedule1", "task1"));
+		client.batch().cronjobs().create(cronJob("schedule2", "task2"));
+		client.batch().cronjobs().create(cronJob("schedule3", "task1"));
+
+		assertThat(scheduler.list()).extracting(ScheduleInfo::getScheduleName)
+				.containsExactlyInAnyOrder("schedule1", "schedule2", "schedule3");
+		int requestCount = server.getMockServer().getRequestCount();
+		for (int i = 0; i < 10; i++) {
+			assertThat(scheduler.list()).hasSize(3);
+			assertThat(scheduler.list("task1")).extracting(ScheduleInfo::getScheduleName)
+					.containsExactlyInAnyOrder("schedule1", "schedule3");
+		}
+		assertThat(scheduler.list("task3")).isEmpty();
+		assertThat(server.getMockServer().getRequestCount()).isEqualTo(requestCount);
+	}
+
+	@Test
+	public void cacheFollowsChangesMadeOutsideTheScheduler() throws InterruptedException {
+		assertThat(scheduler.list()).isEmpty();
+
+		client.batch().cronjobs().create(cronJob("schedule1", "task1"));
+		awaitScheduleCount(1);
+		assertThat(scheduler.list("task1").get(0).getScheduleProperties())
+				.containsEntry(SchedulerPropertyKeys.CRON_EXPRESSION, "0/10 * * * *");
+
+		client.batch().cronjobs().withName("schedule1").delete();
+		awaitScheduleCount(0);
+	}
+
+	@Test
+	public void newScheduleIsListedRightAway() {
+		assertThat(scheduler.list()).isEmpty();
+
+		scheduler.schedule(scheduleRequest("schedule1"));
+
+		assertThat(scheduler.list("task1")).extracting(ScheduleInfo::getScheduleName).containsExactly("schedule1");
+		scheduler.unschedule("schedule1");
+	}
+
+	@Test
+	public void unscheduledScheduleIsNoLongerListedRightAway() {
+		scheduler.schedule(scheduleRequest("schedule1"));
+		assertThat(scheduler.list()).hasSize(1);
+
+		scheduler.unschedule("schedule1");
+
+		assertThat(scheduler.list()).isEmpty();
+		assertThat(scheduler.list("task1")).isEmpty();
+		assertThatThrownBy(() -> scheduler.unschedule("schedule1"))
+				.isInstanceOf(SchedulerException.class)
+				.hasMessageContaining("schedule1 does not exist");
+	}
+
+	@Test
+	public void unscheduleOfUnknownScheduleDoesNotCallTheServer() {
+		assertThat(scheduler.list()).isEmpty();
+		int requestCount = server.getMockServer().getRequestCount();
+
+		assertThatThrownBy(() -> scheduler.unschedule("missing"))
+				.isInstanceOf(SchedulerException.class)
+				.hasMessageContaining("missing does not exist");
+		assertThat(server.getMockServer().getRequestCount()).isEqualTo(requestCount);
+	}
+
+	private void awaitScheduleCount(int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (scheduler.list().size() != expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+		assertThat(scheduler.list()).hasSize(expected);
+	}
+
+	private static ScheduleRequest scheduleRequest(String scheduleName) {
+		return new ScheduleRequest(new AppDefinition("task1", Collections.emptyMap()),
+				Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "0/10 * * * *"),
+				Collections.emptyMap(), Collections.emptyList(), scheduleName,
+				new DockerResource("springcloud/spring-cloud-deployer-spi-test-app:latest"));
+	}
+
+	private static CronJob cronJob(String name, String taskDefinitionName) {
+		return new CronJobBuilder().withNewMetadata().withName(name)
+				.addToLabels("spring-cronjob-id", taskDefinitionName).endMetadata()
+				.withNewSpec().withSchedule("0/10 * * * *").endSpec().build();
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.List;
+import java.util.Optional;
+
+import io.fabric8.kubernetes.api.model.ListMetaBuilder;
+import io.fabric8.kubernetes.api.model.batch.CronJob;
+import io.fabric8.kubernetes.api.model.batch.CronJobBuilder;
+import io.fabric8.kubernetes.api.model.batch.CronJobListBuilder;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.scheduler.ScheduleInfo;
+import org.springframework.cloud.deployer.spi.scheduler.SchedulerPropertyKeys;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the schedule listing of {@link KubernetesScheduler}, run against a mock API server.
+ */
+public class KubernetesSchedulerListTests {
+
+	private static final String CRONJOBS_PATH = "/apis/batch/v1beta1/namespaces/test/cronjobs";
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, false);
+
+	private KubernetesScheduler scheduler;
+
+	@Before
+	public void setUp() {
+		KubernetesSchedulerProperties schedulerProperties = new KubernetesSchedulerProperties();
+		schedulerProperties.setListPageSize(2);
+		this.scheduler = new KubernetesScheduler(server.getClient(), schedulerProperties);
+	}
+
+	@Test
+	public void listSelectsScheduledTasksOnTheServerPageByPage() {
+		server.expect().get().withPath(CRONJOBS_PATH + "?limit=2&labelSelector=spring-cronjob-id")
+				.andReturn(200, new CronJobListBuilder().addToItems(cronJob("schedule1", "task1"),
+						cronJob("schedule2", "task2"))
+						.withMetadata(new ListMetaBuilder().withContinue("page2").build()).build())
+				.once();
+		server.expect().get().withPath(CRONJOBS_PATH + "?limit=2&continue=page2&labelSelector=spring-cronjob-id")
+				.andReturn(200, new CronJobListBuilder().addToItems(cronJob("schedule3", "task1")).build())
+				.once();
+
+		List<ScheduleInfo> scheduleInfos = scheduler.list();
+
+		assertThat(scheduleInfos).extracting(ScheduleInfo::getScheduleName)
+				.containsExactly("schedule1", "schedule2", "schedule3");
+		assertThat(scheduleInfos.get(0).getTaskDefinitionName()).isEqualTo("task1");
+		assertThat(scheduleInfos.get(0).getScheduleProperties())
+				.containsEntry(SchedulerPropertyKeys.CRON_EXPRESSION, "0/10 * * * *");
+		assertThat(server.getMockServer().getRequestCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void listByTaskDefinitionSelectsOnTheServer() {
+		server.expect().get().withPath(CRONJOBS_PATH + "?limit=2&labelSelector=spring-cronjob-id%3Dtask1")
+				.andReturn(200, new CronJobListBuilder().addToItems(cronJob("schedule1", "task1"),
+						cronJob("schedule3", "task1")).build())
+				.once();
+
+		assertThat(scheduler.list("task1")).extracting(ScheduleInfo::getScheduleName)
+				.containsExactly("schedule1", "schedule3");
+		assertThat(server.getMockServer().getRequestCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void streamFetchesPagesOnlyAsTheyAreConsumed() {
+		server.expect().get().withPath(CRONJOBS_PATH + "?limit=2&labelSelector=spring-cronjob-id")
+				.andReturn(200, new CronJobListBuilder().addToItems(cronJob("schedule1", "task1"),
+						cronJob("schedule2", "task2"))
+						.withMetadata(new ListMetaBuilder().withContinue("page2").build()).build())
+				.once();
+
+		Optional<ScheduleInfo> first = scheduler.stream().findFirst();
+
+		assertThat(first.get().getScheduleName()).isEqualTo("schedule1");
+		assertThat(server.getMockServer().getRequestCount()).isEqualTo(1);
+	}
+
+	private static CronJob cronJob(String name, String taskDefinitionName) {
+		return new CronJobBuilder().withNewMetadata().withName(name)
+				.addToLabels("spring-cronjob-id", taskDefinitionName).endMetadata()
+				.withNewSpec().withSchedule("0/10 * * * *").endSpec().build();
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import io.fabric8.kubernetes.api.model.batch.CronJob;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.resource.docker.DockerResource;
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.deployer.spi.scheduler.ScheduleInfo;
+import org.springframework.cloud.deployer.spi.scheduler.ScheduleRequest;
+import org.springframework.cloud.deployer.spi.scheduler.SchedulerPropertyKeys;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the spreading of schedules that fire at a fixed minute by {@link KubernetesScheduler}.
+ */
+public class KubernetesSchedulerSpreadTests {
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, true);
+
+	@Test
+	public void minuteIsSpreadWithinTheWindow() {
+		Set<String> minutes = new HashSet<>();
+		for (int i = 0; i < 200; i++) {
+			String schedule = KubernetesScheduler.spreadSchedule("0 * * * *", "schedule-" + i, 15);
+			String[] fields = schedule.split(" ");
+			assertThat(Integer.parseInt(fields[0])).isBetween(0, 14);
+			assertThat(fields).endsWith("*", "*", "*", "*");
+			minutes.add(fields[0]);
+		}
+		assertThat(minutes).hasSize(15);
+	}
+
+	@Test
+	public void offsetIsStableForAScheduleName() {
+		String schedule = KubernetesScheduler.spreadSchedule("30 2 * * 1-5", "nightly-report", 20);
+
+		assertThat(KubernetesScheduler.spreadSchedule("30 2 * * 1-5", "nightly-report", 20)).isEqualTo(schedule);
+		assertThat(schedule).endsWith(" 2 * * 1-5");
+	}
+
+	@Test
+	public void minuteIsNotMovedPastTheEndOfTheHour() {
+		for (int i = 0; i < 50; i++) {
+			String schedule = KubernetesScheduler.spreadSchedule("55 * * * *", "schedule-" + i, 30);
+			assertThat(Integer.parseInt(schedule.split(" ")[0])).isBetween(55, 59);
+		}
+	}
+
+	@Test
+	public void macrosAreSpread() {
+		String schedule = KubernetesScheduler.spreadSchedule("@hourly", "schedule-1", 60);
+
+		assertThat(schedule).matches("\\d{1,2} \\* \\* \\* \\*");
+	}
+
+	@Test
+	public void schedulesWithoutAFixedMinuteAreNotChanged() {
+		assertThat(KubernetesScheduler.spreadSchedule("*/5 * * * *", "schedule-1", 15)).isEqualTo("*/5 * * * *");
+		assertThat(KubernetesScheduler.spreadSchedule("0,30 * * * *", "schedule-1", 15)).isEqualTo("0,30 * * * *");
+		assertThat(KubernetesScheduler.spreadSchedule("0-10 * * * *", "schedule-1", 15)).isEqualTo("0-10 * * * *");
+		assertThat(KubernetesScheduler.spreadSchedule("0 * * * *", "schedule-1", 0)).isEqualTo("0 * * * *");
+	}
+
+	@Test
+	public void spreadScheduleIsListedAndTheRequestedOneKept() {
+		KubernetesClient client = server.getClient();
+		KubernetesSchedulerProperties schedulerProperties = new KubernetesSchedulerProperties();
+		schedulerProperties.setScheduleSpreadWindow(30);
+		KubernetesScheduler scheduler = new KubernetesScheduler(client, schedulerProperties);
+
+		scheduler.schedule(scheduleRequest(Collections.emptyMap()));
+
+		CronJob cronJob = client.batch().cronjobs().withName("schedule1").get();
+		assertThat(cronJob.getSpec().getSchedule()).isEqualTo("6 * * * *");
+		assertThat(cronJob.getMetadata().getAnnotations())
+				.containsEntry("spring-cronjob-requested-schedule", "0 * * * *");
+		ScheduleInfo scheduleInfo = scheduler.list().get(0);
+		assertThat(scheduleInfo.getScheduleProperties())
+				.containsEntry(SchedulerPropertyKeys.CRON_EXPRESSION, "6 * * * *");
+	}
+
+	@Test
+	public void spreadWindowCanBeSetPerSchedule() {
+		KubernetesClient client = server.getClient();
+		KubernetesSchedulerProperties schedulerProperties = new KubernetesSchedulerProperties();
+		schedulerProperties.setScheduleSpreadWindow(30);
+		KubernetesScheduler scheduler = new KubernetesScheduler(client, schedulerProperties);
+
+		scheduler.schedule(scheduleRequest(Collections.singletonMap(
+				"spring.cloud.deployer.kubernetes.scheduleSpreadWindow", "0")));
+
+		assertThat(client.batch().cronjobs().withName("schedule1").get().getSpec().getSchedule())
+				.isEqualTo("0 * * * *");
+	}
+
+	private static ScheduleRequest scheduleRequest(Map<String, String> deploymentProperties) {
+		return new ScheduleRequest(new AppDefinition("task1", Collections.emptyMap()),
+				Collections.singletonMap(SchedulerPropertyKeys.CRON_EXPRESSION, "0 * * * *"),
+				deploymentProperties, Collections.emptyList(), "schedule1",
+				new DockerResource("springcloud/spring-cloud-deployer-spi-test-app:latest"));
+	}
+}
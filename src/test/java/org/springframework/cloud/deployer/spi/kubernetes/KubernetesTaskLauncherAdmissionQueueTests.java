@@ -0,0 +1,163 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.resource.docker.DockerResource;
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.deployer.spi.core.AppDeploymentRequest;
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.cloud.deployer.spi.kubernetes.KubernetesTaskLauncherTaskCacheTests.awaitCount;
+import static org.springframework.cloud.deployer.spi.kubernetes.KubernetesTaskLauncherTaskCacheTests.taskPod;
+
+/**
+ * Tests for the launch admission queue of {@link KubernetesTaskLauncher}, run against a mock API server.
+ */
+public class KubernetesTaskLauncherAdmissionQueueTests {
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, true);
+
+	private KubernetesClient client;
+
+	private KubernetesTaskLauncher launcher;
+
+	@Before
+	public void setUp() {
+		this.client = server.getClient();
+		KubernetesDeployerProperties deployerProperties = new KubernetesDeployerProperties();
+		deployerProperties.setMaximumConcurrentTasks(1);
+		KubernetesTaskLauncherProperties taskLauncherProperties = new KubernetesTaskLauncherProperties();
+		taskLauncherProperties.getTaskCache().setEnabled(true);
+		taskLauncherProperties.getAdmissionQueue().setEnabled(true);
+		taskLauncherProperties.getAdmissionQueue().setCapacity(2);
+		taskLauncherProperties.getAdmissionQueue().setPollInterval(100);
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties, this.client);
+	}
+
+	@After
+	public void tearDown() {
+		this.launcher.destroy();
+	}
+
+	@Test
+	public void launchesAreQueuedAndReleasedByPriority() {
+		client.pods().create(taskPod("running-task", "Running"));
+
+		String low = launcher.launch(request("low", Collections.emptyMap()));
+		String high = launcher.launch(request("high",
+				Collections.singletonMap("spring.cloud.deployer.kubernetes.launchPriority", "5")));
+		assertThat(launcher.getAdmissionQueueDepth()).isEqualTo(2);
+		assertThat(launcher.status(low).getState()).isEqualTo(LaunchState.launching);
+		assertThat(client.pods().withName(low).get()).isNull();
+
+		assertThatThrownBy(() -> launcher.launch(request("rejected", Collections.emptyMap())))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("the admission queue is full");
+
+		client.pods().withName("running-task").replace(taskPod("running-task", "Succeeded"));
+		awaitCount(launcher::getAdmissionQueueDepth, 1);
+		assertThat(client.pods().withName(high).get()).isNotNull();
+		assertThat(client.pods().withName(low).get()).isNull();
+
+		client.pods().withName(high).edit().withNewStatus().withPhase("Running").endStatus().done();
+		client.pods().withName(high).edit().withNewStatus().withPhase("Succeeded").endStatus().done();
+		awaitCount(launcher::getAdmissionQueueDepth, 0);
+		assertThat(client.pods().withName(low).get()).isNotNull();
+		assertThat(launcher.getAdmissionQueueMaxWaitTime()).isPositive();
+	}
+
+	@Test
+	public void queuedLaunchCanBeCancelled() {
+		client.pods().create(taskPod("running-task", "Running"));
+
+		String queued = launcher.launch(request("queued", Collections.emptyMap()));
+		launcher.cancel(queued);
+
+		assertThat(launcher.getAdmissionQueueDepth()).isZero();
+		assertThat(launcher.status(queued).getState()).isEqualTo(LaunchState.unknown);
+	}
+
+	@Test
+	public void failedLaunchOfAQueuedTaskCompletesItsFuture() throws Exception {
+		client.pods().create(taskPod("running-task", "Running"));
+		// partitioned tasks need Jobs, so the launch fails once the task is released
+		AsyncTaskLaunch launch = launcher.launchAsync(request("partitioned",
+				Collections.singletonMap("spring.cloud.deployer.kubernetes.partitions", "2")));
+		awaitCount(launcher::getAdmissionQueueDepth, 1);
+
+		client.pods().withName("running-task").replace(taskPod("running-task", "Succeeded"));
+
+		assertThatThrownBy(() -> launch.getCompletion().get(5, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Partitioned tasks are only supported when the JobSpec is used.");
+		assertThat(launcher.getAdmissionQueueDepth()).isZero();
+	}
+
+	@Test
+	public void queuedLaunchesFillTheSlotsFreedUnderDistributedPermits() {
+		KubernetesDeployerProperties deployerProperties = new KubernetesDeployerProperties();
+		deployerProperties.setMaximumConcurrentTasks(2);
+		KubernetesTaskLauncherProperties taskLauncherProperties = new KubernetesTaskLauncherProperties();
+		taskLauncherProperties.getDistributedPermits().setEnabled(true);
+		taskLauncherProperties.getAdmissionQueue().setEnabled(true);
+		taskLauncherProperties.getAdmissionQueue().setPollInterval(100);
+		KubernetesTaskLauncher permitsLauncher = new KubernetesTaskLauncher(deployerProperties,
+				taskLauncherProperties, this.client);
+		try {
+			String first = permitsLauncher.launch(request("first", Collections.emptyMap()));
+			String second = permitsLauncher.launch(request("second", Collections.emptyMap()));
+			String third = permitsLauncher.launch(request("third", Collections.emptyMap()));
+			assertThat(permitsLauncher.getAdmissionQueueDepth()).isEqualTo(1);
+
+			permitsLauncher.cleanup(second);
+			awaitCount(permitsLauncher::getAdmissionQueueDepth, 0);
+			assertThat(client.pods().withName(third).get()).isNotNull();
+
+			// the pod of the third task has not started, and its permit already counts it as running
+			String fourth = permitsLauncher.launch(request("fourth", Collections.emptyMap()));
+			assertThat(permitsLauncher.getAdmissionQueueDepth()).isEqualTo(1);
+			permitsLauncher.cleanup(first);
+
+			awaitCount(permitsLauncher::getAdmissionQueueDepth, 0);
+			assertThat(client.pods().withName(fourth).get()).isNotNull();
+		}
+		finally {
+			permitsLauncher.destroy();
+		}
+	}
+
+	private static AppDeploymentRequest request(String name, Map<String, String> deploymentProperties) {
+		return new AppDeploymentRequest(new AppDefinition(name, Collections.emptyMap()),
+				new DockerResource("springcloud/spring-cloud-deployer-spi-test-app:latest"), deploymentProperties);
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.resource.docker.DockerResource;
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.deployer.spi.core.AppDeploymentRequest;
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+import org.springframework.cloud.deployer.spi.task.TaskStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.cloud.deployer.spi.kubernetes.KubernetesTaskLauncherTaskCacheTests.awaitCount;
+import static org.springframework.cloud.deployer.spi.kubernetes.KubernetesTaskLauncherTaskCacheTests.taskPod;
+
+/**
+ * Tests for the asynchronous launch of {@link KubernetesTaskLauncher}, run against a mock API server.
+ */
+public class KubernetesTaskLauncherAsyncLaunchTests {
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, true);
+
+	private KubernetesClient client;
+
+	private KubernetesDeployerProperties deployerProperties;
+
+	private KubernetesTaskLauncher launcher;
+
+	@Before
+	public void setUp() {
+		this.client = server.getClient();
+		this.deployerProperties = new KubernetesDeployerProperties();
+	}
+
+	@After
+	public void tearDown() {
+		if (this.launcher != null) {
+			this.launcher.destroy();
+		}
+	}
+
+	@Test
+	public void completesWhenThePodFinishes() throws Exception {
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, client);
+
+		AsyncTaskLaunch launch = launcher.launchAsync(request());
+		awaitCount(() -> client.pods().withName(launch.getId()).get() != null ? 1 : 0, 1);
+		assertThat(launch.getCompletion()).isNotDone();
+
+		client.pods().withName(launch.getId()).edit().withNewStatus().withPhase("Running").endStatus().done();
+		client.pods().withName(launch.getId()).edit().withNewStatus().withPhase("Succeeded").endStatus().done();
+
+		TaskStatus status = launch.getCompletion().get(5, TimeUnit.SECONDS);
+		assertThat(status.getTaskLaunchId()).isEqualTo(launch.getId());
+		assertThat(status.getState()).isEqualTo(LaunchState.complete);
+	}
+
+	@Test
+	public void completesWhenTheJobFails() throws Exception {
+		this.deployerProperties.setCreateJob(true);
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, client);
+
+		AsyncTaskLaunch launch = launcher.launchAsync(request());
+		awaitCount(() -> client.batch().jobs().withName(launch.getId()).get() != null ? 1 : 0, 1);
+
+		client.batch().jobs().withName(launch.getId()).edit().withNewStatus().withFailed(1).endStatus().done();
+
+		assertThat(launch.getCompletion().get(5, TimeUnit.SECONDS).getState()).isEqualTo(LaunchState.failed);
+	}
+
+	@Test
+	public void completesAsCancelledWhenThePodIsDeleted() throws Exception {
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, client);
+
+		AsyncTaskLaunch launch = launcher.launchAsync(request());
+		awaitCount(() -> client.pods().withName(launch.getId()).get() != null ? 1 : 0, 1);
+		launcher.cleanup(launch.getId());
+
+		assertThat(launch.getCompletion().get(5, TimeUnit.SECONDS).getState()).isEqualTo(LaunchState.cancelled);
+	}
+
+	@Test
+	public void completesExceptionallyWhenTheLaunchFails() {
+		this.deployerProperties.setMaximumConcurrentTasks(1);
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, client);
+		client.pods().create(taskPod("running-task", "Running"));
+
+		AsyncTaskLaunch launch = launcher.launchAsync(request());
+
+		assertThatThrownBy(() -> launch.getCompletion().get(5, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(IllegalStateException.class);
+	}
+
+	private static AppDeploymentRequest request() {
+		return new AppDeploymentRequest(new AppDefinition("task", Collections.emptyMap()),
+				new DockerResource("springcloud/spring-cloud-deployer-spi-test-app:latest"));
+	}
+}
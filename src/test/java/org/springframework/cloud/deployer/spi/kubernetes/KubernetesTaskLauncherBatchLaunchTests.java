@@ -0,0 +1,130 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.resource.docker.DockerResource;
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.deployer.spi.core.AppDeploymentRequest;
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.deployer.spi.kubernetes.KubernetesTaskLauncherTaskCacheTests.taskPod;
+
+/**
+ * Tests for the batch launch of {@link KubernetesTaskLauncher}, run against a mock API server.
+ */
+public class KubernetesTaskLauncherBatchLaunchTests {
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, true);
+
+	private KubernetesClient client;
+
+	private KubernetesDeployerProperties deployerProperties;
+
+	private KubernetesTaskLauncherProperties taskLauncherProperties;
+
+	private KubernetesTaskLauncher launcher;
+
+	@Before
+	public void setUp() {
+		this.client = server.getClient();
+		this.deployerProperties = new KubernetesDeployerProperties();
+		this.deployerProperties.setMaximumConcurrentTasks(4);
+		this.taskLauncherProperties = new KubernetesTaskLauncherProperties();
+		this.taskLauncherProperties.setBatchLaunchParallelism(3);
+	}
+
+	@After
+	public void tearDown() {
+		if (this.launcher != null) {
+			this.launcher.destroy();
+		}
+	}
+
+	@Test
+	public void batchLaunchCreatesPodsUpToTheLimit() {
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties, client);
+		client.pods().create(taskPod("running-task", "Running"));
+
+		List<BatchResult> results = launcher.launch(requests("worker", 5));
+
+		assertThat(results).hasSize(5);
+		assertThat(results).extracting(BatchResult::getId).doesNotHaveDuplicates();
+		for (BatchResult result : results.subList(0, 3)) {
+			assertThat(result.isSuccess()).isTrue();
+			assertThat(client.pods().withName(result.getId()).get()).isNotNull();
+		}
+		for (BatchResult result : results.subList(3, 5)) {
+			assertThat(result.isSuccess()).isFalse();
+			assertThat(result.getError()).isInstanceOf(IllegalStateException.class)
+					.hasMessageContaining("maximum concurrent task executions is at its limit [4]");
+			assertThat(client.pods().withName(result.getId()).get()).isNull();
+		}
+	}
+
+	@Test
+	public void batchLaunchCreatesJobs() {
+		this.deployerProperties.setCreateJob(true);
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties, client);
+
+		List<BatchResult> results = launcher.launch(requests("worker", 4));
+
+		assertThat(results).allMatch(BatchResult::isSuccess);
+		for (BatchResult result : results) {
+			assertThat(client.batch().jobs().withName(result.getId()).get()).isNotNull();
+		}
+	}
+
+	@Test
+	public void batchLaunchQueuesBeyondTheLimit() {
+		this.deployerProperties.setMaximumConcurrentTasks(1);
+		this.taskLauncherProperties.getAdmissionQueue().setEnabled(true);
+		this.taskLauncherProperties.getAdmissionQueue().setPollInterval(60000);
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties, client);
+		client.pods().create(taskPod("running-task", "Running"));
+
+		List<BatchResult> results = launcher.launch(requests("worker", 3));
+
+		assertThat(results).allMatch(BatchResult::isSuccess);
+		assertThat(launcher.getAdmissionQueueDepth()).isEqualTo(3);
+		for (BatchResult result : results) {
+			assertThat(client.pods().withName(result.getId()).get()).isNull();
+			assertThat(launcher.status(result.getId()).getState()).isEqualTo(LaunchState.launching);
+		}
+	}
+
+	private static List<AppDeploymentRequest> requests(String name, int count) {
+		List<AppDeploymentRequest> requests = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			requests.add(new AppDeploymentRequest(new AppDefinition(name, Collections.emptyMap()),
+					new DockerResource("springcloud/spring-cloud-deployer-spi-test-app:latest")));
+		}
+		return requests;
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+import org.springframework.cloud.deployer.spi.task.TaskStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the confirmation of an asynchronous cancel of {@link KubernetesTaskLauncher} while the watch of the
+ * task resources cannot be started, run against a mock API server whose task list requests fail.
+ */
+public class KubernetesTaskLauncherCancelConfirmationTests {
+
+	private static final String POD_PATH = "/api/v1/namespaces/test/pods/task-1";
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, false);
+
+	private KubernetesTaskLauncher launcher;
+
+	@Before
+	public void setUp() {
+		KubernetesTaskLauncherProperties taskLauncherProperties = new KubernetesTaskLauncherProperties();
+		taskLauncherProperties.getCancellation().setFast(true);
+		taskLauncherProperties.getCancellation().setGracePeriod(1);
+		this.launcher = new KubernetesTaskLauncher(new KubernetesDeployerProperties(), taskLauncherProperties,
+				server.getClient());
+		server.expect().delete().withPath(POD_PATH).andReturn(200, pod()).once();
+	}
+
+	@After
+	public void tearDown() {
+		this.launcher.destroy();
+	}
+
+	@Test
+	public void cancelAsyncCompletesOnceThePodIsNotFound() throws Exception {
+		TaskStatus status = launcher.cancelAsync("task-1").get(5, TimeUnit.SECONDS);
+
+		assertThat(status.getState()).isEqualTo(LaunchState.cancelled);
+	}
+
+	@Test
+	public void cancelAsyncFailsWhenThePodOutlivesTheGracePeriod() {
+		server.expect().get().withPath(POD_PATH).andReturn(200, pod()).always();
+
+		assertThatThrownBy(() -> launcher.cancelAsync("task-1").get(10, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Could not confirm the deletion of task task-1");
+	}
+
+	private static Pod pod() {
+		return new PodBuilder().withNewMetadata().withName("task-1").addToLabels("task-name", "task").endMetadata()
+				.build();
+	}
+}
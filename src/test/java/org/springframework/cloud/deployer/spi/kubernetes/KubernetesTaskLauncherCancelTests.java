@@ -0,0 +1,144 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.resource.docker.DockerResource;
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.deployer.spi.core.AppDeploymentRequest;
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+import org.springframework.cloud.deployer.spi.task.TaskStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the fast cancel of {@link KubernetesTaskLauncher}, run against a mock API server.
+ */
+public class KubernetesTaskLauncherCancelTests {
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, true);
+
+	private KubernetesClient client;
+
+	private KubernetesDeployerProperties deployerProperties;
+
+	private KubernetesTaskLauncherProperties taskLauncherProperties;
+
+	private KubernetesTaskLauncher launcher;
+
+	@Before
+	public void setUp() {
+		this.client = server.getClient();
+		this.deployerProperties = new KubernetesDeployerProperties();
+		this.taskLauncherProperties = new KubernetesTaskLauncherProperties();
+		this.taskLauncherProperties.getCancellation().setFast(true);
+		this.taskLauncherProperties.getCancellation().setGracePeriod(3);
+	}
+
+	@After
+	public void tearDown() {
+		if (this.launcher != null) {
+			this.launcher.destroy();
+		}
+	}
+
+	@Test
+	public void fastCancelSendsOneDeleteWithoutListing() throws Exception {
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties, client);
+		String id = launcher.launch(request());
+		int requestCount = server.getMockServer().getRequestCount();
+
+		launcher.cancel(id);
+
+		List<RecordedRequest> requests = takeRequests();
+		List<RecordedRequest> taskRequests = new ArrayList<>();
+		for (RecordedRequest recorded : requests.subList(requestCount, requests.size())) {
+			if (recorded.getPath().contains(id) || recorded.getPath().contains("spring-app-id")) {
+				taskRequests.add(recorded);
+			}
+		}
+		assertThat(taskRequests).hasSize(1);
+		RecordedRequest delete = taskRequests.get(0);
+		assertThat(delete.getMethod()).isEqualTo("DELETE");
+		assertThat(delete.getPath()).isEqualTo("/api/v1/namespaces/test/pods/" + id);
+		String body = delete.getBody().readUtf8();
+		assertThat(body).contains("\"gracePeriodSeconds\":3").contains("\"propagationPolicy\":\"Background\"");
+		assertThat(requests.subList(requestCount, requests.size())).extracting(RecordedRequest::getPath)
+				.noneMatch(path -> path.contains("labelSelector"));
+		assertThat(launcher.getTaskCacheFreshness()).isEqualTo(-1);
+	}
+
+	@Test
+	public void cancelAsyncCompletesOnceThePodIsGone() throws Exception {
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties, client);
+		String id = launcher.launch(request());
+
+		CompletableFuture<TaskStatus> cancellation = launcher.cancelAsync(id);
+
+		TaskStatus status = cancellation.get(5, TimeUnit.SECONDS);
+		assertThat(status.getTaskLaunchId()).isEqualTo(id);
+		assertThat(status.getState()).isEqualTo(LaunchState.cancelled);
+		assertThat(client.pods().withName(id).get()).isNull();
+	}
+
+	@Test
+	public void cancelAsyncCompletesOnceTheJobIsGone() throws Exception {
+		deployerProperties.setCreateJob(true);
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties, client);
+		String id = launcher.launch(request());
+
+		TaskStatus status = launcher.cancelAsync(id).get(5, TimeUnit.SECONDS);
+		assertThat(status.getState()).isEqualTo(LaunchState.cancelled);
+		assertThat(client.batch().jobs().withName(id).get()).isNull();
+	}
+
+	@Test
+	public void cancelAsyncOfUnknownTaskCompletesRightAway() throws Exception {
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties, client);
+
+		TaskStatus status = launcher.cancelAsync("missing").get(5, TimeUnit.SECONDS);
+		assertThat(status.getState()).isEqualTo(LaunchState.unknown);
+	}
+
+	private List<RecordedRequest> takeRequests() throws InterruptedException {
+		List<RecordedRequest> requests = new ArrayList<>();
+		RecordedRequest recorded;
+		while ((recorded = server.getMockServer().takeRequest(100, TimeUnit.MILLISECONDS)) != null) {
+			requests.add(recorded);
+		}
+		return requests;
+	}
+
+	private static AppDeploymentRequest request() {
+		return new AppDeploymentRequest(new AppDefinition("task", Collections.emptyMap()),
+				new DockerResource("springcloud/spring-cloud-deployer-spi-test-app:latest"));
+	}
+}
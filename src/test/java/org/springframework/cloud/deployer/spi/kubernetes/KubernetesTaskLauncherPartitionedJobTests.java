@@ -0,0 +1,145 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.fabric8.kubernetes.api.model.EnvVar;
+import io.fabric8.kubernetes.api.model.batch.Job;
+import io.fabric8.kubernetes.api.model.batch.JobStatus;
+import io.fabric8.kubernetes.api.model.batch.JobStatusBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.resource.docker.DockerResource;
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.deployer.spi.core.AppDeploymentRequest;
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+import org.springframework.cloud.deployer.spi.task.TaskStatus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for partitioned tasks launched as Indexed Jobs by {@link KubernetesTaskLauncher}, run against a mock API
+ * server.
+ */
+public class KubernetesTaskLauncherPartitionedJobTests {
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, true);
+
+	private KubernetesClient client;
+
+	private KubernetesDeployerProperties deployerProperties;
+
+	private KubernetesTaskLauncher launcher;
+
+	@Before
+	public void setUp() {
+		this.client = server.getClient();
+		this.deployerProperties = new KubernetesDeployerProperties();
+		this.deployerProperties.setCreateJob(true);
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, new KubernetesTaskLauncherProperties(),
+				client);
+	}
+
+	@After
+	public void tearDown() {
+		this.launcher.destroy();
+	}
+
+	@Test
+	public void partitionedTaskIsLaunchedAsOneIndexedJob() {
+		Map<String, String> deploymentProperties = new HashMap<>();
+		deploymentProperties.put("spring.cloud.deployer.kubernetes.partitions", "4");
+		deploymentProperties.put("spring.cloud.deployer.kubernetes.partitionParallelism", "2");
+
+		String id = launcher.launch(request(deploymentProperties));
+
+		assertThat(client.batch().jobs().list().getItems()).hasSize(1);
+		Job job = client.batch().jobs().withName(id).get();
+		assertThat(job.getSpec().getCompletions()).isEqualTo(4);
+		assertThat(job.getSpec().getParallelism()).isEqualTo(2);
+		assertThat(job.getSpec().getAdditionalProperties()).containsEntry("completionMode", "Indexed");
+		EnvVar indexEnvVar = job.getSpec().getTemplate().getSpec().getContainers().get(0).getEnv().stream()
+				.filter(envVar -> envVar.getName().equals("INSTANCE_INDEX")).findFirst().get();
+		assertThat(indexEnvVar.getValueFrom().getFieldRef().getFieldPath())
+				.isEqualTo("metadata.annotations['batch.kubernetes.io/job-completion-index']");
+	}
+
+	@Test
+	public void parallelismDefaultsToThePartitions() {
+		String id = launcher.launch(request(Collections.singletonMap("spring.cloud.deployer.kubernetes.partitions",
+				"3")));
+
+		assertThat(client.batch().jobs().withName(id).get().getSpec().getParallelism()).isEqualTo(3);
+	}
+
+	@Test
+	public void statusAggregatesTheCompletionIndexes() {
+		String id = launcher.launch(request(Collections.singletonMap("spring.cloud.deployer.kubernetes.partitions",
+				"3")));
+
+		JobStatus partlyDone = new JobStatusBuilder().withActive(1).withSucceeded(2).withFailed(1).build();
+		partlyDone.setAdditionalProperty("completedIndexes", "0,2");
+		setStatus(id, partlyDone);
+		TaskStatus status = launcher.status(id);
+		assertThat(status.getState()).isEqualTo(LaunchState.launching);
+		assertThat(status.getAttributes()).containsEntry("job.completions", "3")
+				.containsEntry("job.active", "1")
+				.containsEntry("job.succeeded", "2")
+				.containsEntry("job.failed", "1")
+				.containsEntry("job.completedIndexes", "0,2");
+
+		setStatus(id, new JobStatusBuilder().withSucceeded(3).withFailed(1).build());
+		assertThat(launcher.status(id).getState()).isEqualTo(LaunchState.complete);
+
+		setStatus(id, new JobStatusBuilder().withSucceeded(2).withFailed(7).addNewCondition().withType("Failed")
+				.withStatus("True").endCondition().build());
+		assertThat(launcher.status(id).getState()).isEqualTo(LaunchState.failed);
+	}
+
+	@Test
+	public void partitionsRequireJobs() {
+		deployerProperties.setCreateJob(false);
+
+		assertThatThrownBy(() -> launcher.launch(request(Collections.singletonMap(
+				"spring.cloud.deployer.kubernetes.partitions", "3"))))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Partitioned tasks are only supported when the JobSpec is used.");
+	}
+
+	private void setStatus(String id, JobStatus status) {
+		Job job = client.batch().jobs().withName(id).get();
+		job.setStatus(status);
+		// replace drops the additional properties of the status, so recreate the Job instead
+		client.batch().jobs().withName(id).delete();
+		client.batch().jobs().create(job);
+	}
+
+	private static AppDeploymentRequest request(Map<String, String> deploymentProperties) {
+		return new AppDeploymentRequest(new AppDefinition("partitioned", Collections.emptyMap()),
+				new DockerResource("springcloud/spring-cloud-deployer-spi-test-app:latest"), deploymentProperties);
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.resource.docker.DockerResource;
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.deployer.spi.core.AppDeploymentRequest;
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.springframework.cloud.deployer.spi.kubernetes.KubernetesTaskLauncherTaskCacheTests.awaitCount;
+import static org.springframework.cloud.deployer.spi.kubernetes.KubernetesTaskLauncherTaskCacheTests.taskPod;
+
+/**
+ * Tests for the per task name and per group quotas of {@link KubernetesTaskLauncher}, run against a mock API
+ * server.
+ */
+public class KubernetesTaskLauncherQuotaTests {
+
+	private static final String QUOTA_GROUP = "spring.cloud.deployer.kubernetes.quotaGroup";
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, true);
+
+	private KubernetesClient client;
+
+	private KubernetesDeployerProperties deployerProperties;
+
+	private KubernetesTaskLauncherProperties taskLauncherProperties;
+
+	private KubernetesTaskLauncher launcher;
+
+	@Before
+	public void setUp() {
+		this.client = server.getClient();
+		this.deployerProperties = new KubernetesDeployerProperties();
+		this.taskLauncherProperties = new KubernetesTaskLauncherProperties();
+		this.taskLauncherProperties.getQuotas().getTaskNames().put("etl", 1);
+		this.taskLauncherProperties.getQuotas().getGroups().put("pipelines", 2);
+	}
+
+	@After
+	public void tearDown() {
+		if (this.launcher != null) {
+			this.launcher.destroy();
+		}
+	}
+
+	@Test
+	public void taskNameQuotaDoesNotHoldBackOtherTasks() {
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties, client);
+
+		String etl = launcher.launch(request("etl", Collections.emptyMap()));
+		assertThatThrownBy(() -> launcher.launch(request("etl", Collections.emptyMap())))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("quota [task-name=etl] is at its limit [1]");
+		assertThat(launcher.launch(request("report", Collections.emptyMap()))).isNotNull();
+		assertThat(launcher.getTaskQuotaUsage()).containsExactly(entry("task-name=etl", 1));
+		assertThat(launcher.getTaskQuotaLimits()).containsExactly(entry("task-name=etl", 1));
+		assertThat(launcher.getTaskQuotaRejectionCount()).isEqualTo(1);
+
+		launcher.cleanup(etl);
+		assertThat(launcher.getTaskQuotaUsage()).containsExactly(entry("task-name=etl", 0));
+		assertThat(launcher.launch(request("etl", Collections.emptyMap()))).isNotNull();
+	}
+
+	@Test
+	public void groupQuotaIsSharedByTheTasksOfTheGroup() {
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties, client);
+
+		String first = launcher.launch(request("ingest", Collections.singletonMap(QUOTA_GROUP, "pipelines")));
+		launcher.launch(request("transform", Collections.singletonMap(QUOTA_GROUP, "pipelines")));
+		assertThatThrownBy(() -> launcher.launch(request("publish", Collections.singletonMap(QUOTA_GROUP,
+				"pipelines"))))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("quota [task-quota-group=pipelines] is at its limit [2]");
+
+		assertThat(client.pods().withName(first).get().getMetadata().getLabels())
+				.containsEntry("task-quota-group", "pipelines");
+		assertThat(launcher.getTaskQuotaUsage()).containsExactly(entry("task-quota-group=pipelines", 2));
+	}
+
+	@Test
+	public void deploymentPropertyOverridesTheTaskNameQuota() {
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties, client);
+		Map<String, String> deploymentProperties = Collections.singletonMap(
+				"spring.cloud.deployer.kubernetes.taskQuota", "2");
+
+		launcher.launch(request("etl", deploymentProperties));
+		launcher.launch(request("etl", deploymentProperties));
+		assertThatThrownBy(() -> launcher.launch(request("etl", deploymentProperties)))
+				.hasMessageContaining("quota [task-name=etl] is at its limit [2]");
+	}
+
+	@Test
+	public void quotaCountsTasksAlreadyRunningInTheCluster() {
+		client.pods().create(taskPod("running-task", "Running"));
+		client.pods().create(taskPod("finished-task", "Succeeded"));
+		this.taskLauncherProperties.getQuotas().getTaskNames().put("task", 1);
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties, client);
+
+		assertThatThrownBy(() -> launcher.launch(request("task", Collections.emptyMap())))
+				.hasMessageContaining("quota [task-name=task] is at its limit [1]");
+
+		client.pods().withName("running-task").replace(taskPod("running-task", "Succeeded"));
+		assertThat(launcher.launch(request("task", Collections.emptyMap()))).isNotNull();
+	}
+
+	@Test
+	public void queuedLaunchWaitsForItsQuotaWithoutBlockingOthers() {
+		this.taskLauncherProperties.getAdmissionQueue().setEnabled(true);
+		this.taskLauncherProperties.getAdmissionQueue().setPollInterval(100);
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties, client);
+
+		String etl = launcher.launch(request("etl", Collections.emptyMap()));
+		String queued = launcher.launch(request("etl", Collections.emptyMap()));
+		assertThat(launcher.status(queued).getState()).isEqualTo(LaunchState.launching);
+		String report = launcher.launch(request("report", Collections.emptyMap()));
+
+		awaitCount(launcher::getAdmissionQueueDepth, 1);
+		assertThat(client.pods().withName(report).get()).isNotNull();
+		assertThat(client.pods().withName(queued).get()).isNull();
+
+		launcher.cleanup(etl);
+		awaitCount(launcher::getAdmissionQueueDepth, 0);
+		assertThat(client.pods().withName(queued).get()).isNotNull();
+	}
+
+	@Test
+	public void batchLaunchReportsTheQuotaThatWasHit() {
+		this.launcher = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties, client);
+
+		List<BatchResult> results = launcher.launch(Arrays.asList(request("etl", Collections.emptyMap()),
+				request("etl", Collections.emptyMap()), request("report", Collections.emptyMap())));
+
+		assertThat(results.get(0).isSuccess()).isTrue();
+		assertThat(results.get(1).getError()).hasMessageContaining("quota [task-name=etl] is at its limit [1]");
+		assertThat(results.get(2).isSuccess()).isTrue();
+	}
+
+	private static AppDeploymentRequest request(String name, Map<String, String> deploymentProperties) {
+		return new AppDeploymentRequest(new AppDefinition(name, Collections.emptyMap()),
+				new DockerResource("springcloud/spring-cloud-deployer-spi-test-app:latest"), deploymentProperties);
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.function.IntSupplier;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.batch.JobBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the watch-driven task pod cache of {@link KubernetesTaskLauncher}, run against a mock API server.
+ */
+public class KubernetesTaskLauncherTaskCacheTests {
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, true);
+
+	private KubernetesClient client;
+
+	private KubernetesTaskLauncher launcher;
+
+	@Before
+	public void setUp() {
+		this.client = server.getClient();
+		KubernetesTaskLauncherProperties taskLauncherProperties = new KubernetesTaskLauncherProperties();
+		taskLauncherProperties.getTaskCache().setEnabled(true);
+		this.launcher = new KubernetesTaskLauncher(new KubernetesDeployerProperties(), taskLauncherProperties,
+				this.client);
+	}
+
+	@After
+	public void tearDown() {
+		this.launcher.destroy();
+	}
+
+	@Test
+	public void runningCountIsMaintainedFromWatchEvents() {
+		client.pods().create(taskPod("task-1", "Running"));
+		client.pods().create(taskPod("task-2", "Pending"));
+		client.pods().create(taskPod("task-3", "Succeeded"));
+
+		assertThat(launcher.getRunningTaskExecutionCount()).isEqualTo(1);
+		int requestCount = server.getMockServer().getRequestCount();
+		for (int i = 0; i < 10; i++) {
+			assertThat(launcher.getRunningTaskExecutionCount()).isEqualTo(1);
+		}
+		assertThat(server.getMockServer().getRequestCount()).isEqualTo(requestCount);
+
+		client.pods().withName("task-2").replace(taskPod("task-2", "Running"));
+		awaitCount(launcher::getRunningTaskExecutionCount, 2);
+
+		client.pods().withName("task-1").replace(taskPod("task-1", "Succeeded"));
+		client.pods().withName("task-2").delete();
+		awaitCount(launcher::getRunningTaskExecutionCount, 0);
+	}
+
+	@Test
+	public void podsWithoutTaskNameLabelAreNotCounted() {
+		Pod pod = taskPod("not-a-task", "Running");
+		pod.getMetadata().getLabels().remove("task-name");
+		client.pods().create(pod);
+
+		assertThat(launcher.getRunningTaskExecutionCount()).isZero();
+	}
+
+	@Test
+	public void podStatusIsReadFromTheCache() {
+		client.pods().create(taskPod("task-1", "Pending"));
+
+		assertThat(launcher.getTaskCacheFreshness()).isEqualTo(-1);
+		assertThat(launcher.status("task-1").getState()).isEqualTo(LaunchState.launching);
+		int requestCount = server.getMockServer().getRequestCount();
+		for (int i = 0; i < 10; i++) {
+			assertThat(launcher.status("task-1").getState()).isEqualTo(LaunchState.launching);
+		}
+		assertThat(server.getMockServer().getRequestCount()).isEqualTo(requestCount);
+		assertThat(launcher.getTaskCacheFreshness()).isNotNegative();
+		assertThat(launcher.getTaskCacheResyncLag()).isNotNegative();
+
+		client.pods().withName("task-1").replace(taskPod("task-1", "Succeeded"));
+		awaitCount(() -> launcher.status("task-1").getState().ordinal(), LaunchState.complete.ordinal());
+	}
+
+	@Test
+	public void jobStatusIsReadFromTheCache() {
+		KubernetesDeployerProperties deployerProperties = new KubernetesDeployerProperties();
+		deployerProperties.setCreateJob(true);
+		KubernetesTaskLauncherProperties taskLauncherProperties = new KubernetesTaskLauncherProperties();
+		taskLauncherProperties.getTaskCache().setEnabled(true);
+		KubernetesTaskLauncher jobLauncher = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties,
+				this.client);
+		try {
+			client.batch().jobs().create(new JobBuilder().withNewMetadata().withName("task-1")
+					.addToLabels("task-name", "task")
+					.addToLabels(AbstractKubernetesDeployer.SPRING_APP_KEY, "task-1")
+					.endMetadata()
+					.withNewStatus().withSucceeded(1).endStatus()
+					.build());
+
+			assertThat(jobLauncher.status("task-1").getState()).isEqualTo(LaunchState.complete);
+			int requestCount = server.getMockServer().getRequestCount();
+			for (int i = 0; i < 10; i++) {
+				assertThat(jobLauncher.status("task-1").getState()).isEqualTo(LaunchState.complete);
+			}
+			assertThat(server.getMockServer().getRequestCount()).isEqualTo(requestCount);
+			assertThat(jobLauncher.status("task-2").getState()).isEqualTo(LaunchState.unknown);
+		}
+		finally {
+			jobLauncher.destroy();
+		}
+	}
+
+	static Pod taskPod(String id, String phase) {
+		return new PodBuilder().withNewMetadata().withName(id)
+				.addToLabels("task-name", "task")
+				.addToLabels(AbstractKubernetesDeployer.SPRING_APP_KEY, id)
+				.endMetadata()
+				.withNewStatus().withPhase(phase).endStatus()
+				.build();
+	}
+
+	static void awaitCount(IntSupplier count, int expected) {
+		for (int i = 0; i < 50 && count.getAsInt() != expected; i++) {
+			try {
+				Thread.sleep(100);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		assertThat(count.getAsInt()).isEqualTo(expected);
+	}
+}
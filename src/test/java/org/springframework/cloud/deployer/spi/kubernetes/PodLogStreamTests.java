@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.fabric8.kubernetes.api.model.PodListBuilder;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.deployer.spi.kubernetes.KubernetesAppDeployerStatusCacheTests.pod;
+
+/**
+ * Tests for {@link PodLogStream} and the log streaming of {@link KubernetesAppDeployer}.
+ */
+public class PodLogStreamTests {
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, false);
+
+	@Test
+	public void linesArePrefixedWithThePodName() throws Exception {
+		Map<String, Supplier<Reader>> logReaders = new LinkedHashMap<>();
+		logReaders.put("pod-1", () -> new StringReader("first\nsecond\n"));
+		logReaders.put("pod-2", () -> new StringReader("third\n"));
+		List<String> lines = new ArrayList<>();
+
+		PodLogStream.start(logReaders, 2, lines::add).getCompletion().get(5, TimeUnit.SECONDS);
+
+		assertThat(lines).containsExactlyInAnyOrder("[pod-1] first", "[pod-1] second", "[pod-2] third");
+		assertThat(lines).containsSubsequence("[pod-1] first", "[pod-1] second");
+	}
+
+	@Test
+	public void logsOfMorePodsThanTheParallelismAreReadInTurn() throws Exception {
+		Map<String, Supplier<Reader>> logReaders = new LinkedHashMap<>();
+		Set<String> threads = ConcurrentHashMap.newKeySet();
+		for (int i = 0; i < 10; i++) {
+			String line = "line-" + i + "\n";
+			logReaders.put("pod-" + i, () -> {
+				threads.add(Thread.currentThread().getName());
+				return new StringReader(line);
+			});
+		}
+		List<String> lines = new ArrayList<>();
+
+		PodLogStream.start(logReaders, 3, lines::add).getCompletion().get(5, TimeUnit.SECONDS);
+
+		assertThat(lines).hasSize(10).contains("[pod-0] line-0", "[pod-9] line-9");
+		assertThat(threads.size()).isLessThanOrEqualTo(3);
+	}
+
+		@Test
+	public void appLogsAreStreamedFromEveryPod() throws Exception {
+		server.expect().get().withPath("/api/v1/namespaces/test/pods?labelSelector=spring-app-id%3Dapp1")
+				.andReturn(200, new PodListBuilder().addToItems(pod("app1-pod-1", "app1", "Running", true),
+						pod("app1-pod-2", "app1", "Running", true)).build())
+				.once();
+		server.expect().get().withPath("/api/v1/namespaces/test/pods/app1-pod-1/log?pretty=false&tailLines=500")
+				.andReturn(200, "started\nready\n").once();
+		server.expect().get().withPath("/api/v1/namespaces/test/pods/app1-pod-2/log?pretty=false&tailLines=500")
+				.andReturn(200, "started\n").once();
+		KubernetesAppDeployer deployer = new KubernetesAppDeployer(new KubernetesDeployerProperties(),
+				server.getClient());
+		List<String> lines = new ArrayList<>();
+
+		deployer.streamLog("app1", false, lines::add).getCompletion().get(5, TimeUnit.SECONDS);
+
+		assertThat(lines).containsExactlyInAnyOrder("[app1-pod-1] started", "[app1-pod-1] ready",
+				"[app1-pod-2] started");
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.app.AppInstanceStatus;
+import org.springframework.cloud.deployer.spi.app.DeploymentState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.deployer.spi.kubernetes.KubernetesAppDeployerStatusCacheTests.pod;
+
+/**
+ * Unit tests for {@link PodStatusProjection} and {@link ServiceStatusProjection}.
+ */
+public class PodStatusProjectionTests {
+
+	private final KubernetesDeployerProperties properties = new KubernetesDeployerProperties();
+
+	@Test
+	public void projectionReportsSameStatusAsPod() {
+		Pod pod = pod("app1-pod", "app1", "Running", true);
+		pod.getMetadata().setUid("uid-1");
+		pod.getStatus().setPodIP("10.0.0.1");
+		pod.getStatus().setHostIP("192.168.0.1");
+		pod.getStatus().getContainerStatuses().get(0).setRestartCount(2);
+		Service service = new ServiceBuilder().withNewMetadata().withName("app1").endMetadata()
+				.withNewSpec().withType("LoadBalancer").addNewPort().withPort(8080).endPort().endSpec()
+				.withNewStatus().withNewLoadBalancer().addNewIngress().withIp("1.2.3.4").endIngress().endLoadBalancer()
+				.endStatus().build();
+
+		KubernetesAppInstanceStatus expected = new KubernetesAppInstanceStatus(pod, service, properties,
+				pod.getStatus().getContainerStatuses().get(0));
+		AppInstanceStatus projected = PodStatusProjection
+				.of(pod, new KubernetesAppInstanceStatus(pod, null, properties,
+						pod.getStatus().getContainerStatuses().get(0)))
+				.toInstanceStatus(ServiceStatusProjection.of(service));
+
+		assertThat(projected.getId()).isEqualTo(expected.getId());
+		assertThat(projected.getState()).isEqualTo(DeploymentState.deployed).isEqualTo(expected.getState());
+		assertThat(projected.getAttributes()).isEqualTo(expected.getAttributes())
+				.containsEntry("url", "http://1.2.3.4:8080").containsEntry("container.restartCount", "2");
+	}
+
+	@Test
+	public void podWithoutAppContainerHasNoState() {
+		PodStatusProjection projection = PodStatusProjection.of(pod("app2-pod", "app2", "Running", true), null);
+
+		assertThat(projection.getAppId()).isEqualTo("app2");
+		assertThat(projection.getDeploymentKey()).isEqualTo("app2");
+		assertThat(projection.getState()).isNull();
+	}
+}
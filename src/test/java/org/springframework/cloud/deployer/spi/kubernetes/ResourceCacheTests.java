@@ -0,0 +1,74 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.PodListBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ResourceCache}.
+ */
+public class ResourceCacheTests {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void cacheIsNotSyncedWhileAResyncFails() throws Exception {
+		FilterWatchListDeletable<Pod, ?, Boolean, Watch> operation = mock(FilterWatchListDeletable.class);
+		AtomicInteger lists = new AtomicInteger();
+		when(operation.list()).thenAnswer(invocation -> {
+			if (lists.getAndIncrement() > 0) {
+				throw new KubernetesClientException("Internal Server Error", 500, null);
+			}
+			return new PodListBuilder().withNewMetadata().withResourceVersion("1").endMetadata()
+					.addToItems(new PodBuilder().withNewMetadata().withName("pod-1").addToLabels("app", "app-1")
+							.endMetadata().build())
+					.build();
+		});
+		when(operation.watch(any(ListOptions.class), any(Watcher.class))).thenReturn(mock(Watch.class));
+		ResourceCache<Pod, String> cache = new ResourceCache<>("pods",
+				(FilterWatchListDeletable) operation, "app", pod -> pod.getMetadata().getName(), 100);
+		try {
+			cache.start();
+			assertThat(cache.isSynced()).isTrue();
+			assertThat(cache.getByName("pod-1")).isEqualTo("pod-1");
+
+			for (int i = 0; i < 50 && lists.get() < 2; i++) {
+				Thread.sleep(20);
+			}
+
+			assertThat(lists.get()).isGreaterThanOrEqualTo(2);
+			assertThat(cache.isSynced()).isFalse();
+		}
+		finally {
+			cache.stop();
+		}
+	}
+}
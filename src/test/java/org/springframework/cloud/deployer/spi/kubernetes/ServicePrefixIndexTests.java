@@ -0,0 +1,76 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceBuilder;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ServicePrefixIndex}.
+ */
+public class ServicePrefixIndexTests {
+
+	@Test
+	public void findsServiceWhoseNameIsPrefixOfDeploymentKey() {
+		ServicePrefixIndex<Service> index = index(Arrays.asList(service("other"), service("ticktock-log")));
+
+		assertThat(index.find("ticktock-log-v1").getMetadata().getName()).isEqualTo("ticktock-log");
+		assertThat(index.find("ticktock-log").getMetadata().getName()).isEqualTo("ticktock-log");
+		assertThat(index.find("ticktock")).isNull();
+		assertThat(index.find(null)).isNull();
+	}
+
+	@Test
+	public void firstServiceInListWinsLikeLinearScan() {
+		List<Service> services = Arrays.asList(service("ticktock-log-v1"), service("ticktock"), service("ticktock-log"));
+		ServicePrefixIndex<Service> index = index(services);
+
+		for (String key : Arrays.asList("ticktock-log-v1", "ticktock-log-v2", "ticktock-time-v1", "tick")) {
+			assertThat(index.find(key)).isSameAs(linearScan(services, key));
+		}
+	}
+
+	@Test
+	public void emptyIndex() {
+		assertThat(index(null).find("app")).isNull();
+		assertThat(index(new ArrayList<>()).find("app")).isNull();
+	}
+
+	private static ServicePrefixIndex<Service> index(List<Service> services) {
+		return new ServicePrefixIndex<>(services, service -> service.getMetadata().getName());
+	}
+
+	private static Service linearScan(List<Service> services, String deploymentKey) {
+		for (Service service : services) {
+			if (deploymentKey.startsWith(service.getMetadata().getName())) {
+				return service;
+			}
+		}
+		return null;
+	}
+
+	private static Service service(String name) {
+		return new ServiceBuilder().withNewMetadata().withName(name).endMetadata().build();
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link StatusCoalescer}.
+ */
+public class StatusCoalescerTests {
+
+	@Test
+	public void concurrentCallsShareOneComputation() throws Exception {
+		StatusCoalescer<String> coalescer = new StatusCoalescer<>(true, 0);
+		AtomicInteger computations = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> coalescer.get("app", id -> {
+					computations.incrementAndGet();
+					await(release);
+					return id + "-status";
+				})));
+			}
+			while (coalescer.getMissCount() + coalescer.getCoalescedCount() < 8) {
+				Thread.sleep(10);
+			}
+			release.countDown();
+			for (Future<String> result : results) {
+				assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("app-status");
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(computations.get()).isEqualTo(1);
+		assertThat(coalescer.getMissCount()).isEqualTo(1);
+		assertThat(coalescer.getCoalescedCount()).isEqualTo(7);
+	}
+
+	@Test
+	public void statusIsReusedWithinTtlUntilInvalidated() {
+		StatusCoalescer<Integer> coalescer = new StatusCoalescer<>(true, 60000);
+		AtomicInteger computations = new AtomicInteger();
+
+		assertThat(coalescer.get("app", id -> computations.incrementAndGet())).isEqualTo(1);
+		assertThat(coalescer.get("app", id -> computations.incrementAndGet())).isEqualTo(1);
+		assertThat(coalescer.get("other", id -> computations.incrementAndGet())).isEqualTo(2);
+		assertThat(coalescer.getHitCount()).isEqualTo(1);
+		assertThat(coalescer.getMissCount()).isEqualTo(2);
+
+		coalescer.invalidate("app");
+		assertThat(coalescer.get("app", id -> computations.incrementAndGet())).isEqualTo(3);
+	}
+
+	@Test
+	public void failuresAreNotReused() {
+		StatusCoalescer<String> coalescer = new StatusCoalescer<>(true, 60000);
+
+		assertThatThrownBy(() -> coalescer.get("app", id -> {
+			throw new IllegalStateException("boom");
+		})).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+		assertThat(coalescer.get("app", id -> "recovered")).isEqualTo("recovered");
+	}
+
+	@Test
+	public void disabledCoalescerAlwaysComputes() {
+		StatusCoalescer<Integer> coalescer = new StatusCoalescer<>(false, 60000);
+		AtomicInteger computations = new AtomicInteger();
+
+		coalescer.get("app", id -> computations.incrementAndGet());
+		coalescer.get("app", id -> computations.incrementAndGet());
+		assertThat(computations.get()).isEqualTo(2);
+		assertThat(coalescer.getMissCount()).isZero();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.resource.docker.DockerResource;
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.deployer.spi.core.AppDeploymentRequest;
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link TaskAdmissionQueue}.
+ */
+public class TaskAdmissionQueueTests {
+
+	private TaskAdmissionQueue queue;
+
+	@After
+	public void tearDown() {
+		if (this.queue != null) {
+			this.queue.stop();
+		}
+	}
+
+	@Test
+	public void queueStaysAvailableWhileALaunchIsReleased() throws Exception {
+		CountDownLatch launching = new CountDownLatch(1);
+		CountDownLatch launched = new CountDownLatch(1);
+		this.queue = new TaskAdmissionQueue(10, 60000, () -> 2, () -> 0, false, id -> LaunchState.unknown,
+				(appId, request) -> {
+					launching.countDown();
+					try {
+						return launched.await(5, TimeUnit.SECONDS);
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return false;
+					}
+				}, request -> false, (appId, e) -> { });
+		queue.offer("task-1", request(), 0);
+		CompletableFuture<Void> drain = CompletableFuture.runAsync(queue::drain);
+		assertThat(launching.await(5, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(queue.contains("task-1")).isTrue();
+		assertThat(queue.remove("task-1")).isFalse();
+		assertThat(queue.offer("task-2", request(), 0)).isTrue();
+		assertThat(queue.getDepth()).isEqualTo(2);
+
+		launched.countDown();
+		drain.get(5, TimeUnit.SECONDS);
+		assertThat(queue.contains("task-1")).isFalse();
+		assertThat(queue.getAdmittedCount()).isEqualTo(2);
+		assertThat(queue.getDepth()).isZero();
+	}
+
+	private static AppDeploymentRequest request() {
+		return new AppDeploymentRequest(new AppDefinition("task", Collections.emptyMap()),
+				new DockerResource("springcloud/spring-cloud-deployer-spi-test-app:latest"));
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link TaskIdGenerator}.
+ */
+public class TaskIdGeneratorTests {
+
+	@Test
+	public void idsAreUniqueWithinTheSameMillisecond() {
+		TaskIdGenerator generator = new TaskIdGenerator(7, () -> 1000L);
+
+		String first = generator.generate("task");
+		String second = generator.generate("task");
+
+		assertThat(first).startsWith("task-");
+		assertThat(second).isNotEqualTo(first);
+	}
+
+	@Test
+	public void idsFollowKubernetesNameRules() {
+		TaskIdGenerator generator = new TaskIdGenerator();
+
+		String id = generator.generate("My.Task");
+
+		assertThat(id).startsWith("my-task-").matches("[a-z0-9-]+");
+		assertThat(id.length()).isLessThanOrEqualTo(63);
+	}
+
+	@Test
+	public void longNamesAreShortenedToFitTheNameLimit() {
+		TaskIdGenerator generator = new TaskIdGenerator(7, () -> 1000L);
+		String name = "my-very-long-composed-task-definition-name-with.a-child-task-label";
+
+		String first = generator.generate(name);
+		String second = generator.generate(name);
+
+		assertThat(first.length()).isLessThanOrEqualTo(63);
+		assertThat(first).startsWith("my-very-long-composed-task-").matches("[a-z0-9]([-a-z0-9]*[a-z0-9])?")
+				.doesNotContain("--");
+		assertThat(second.length()).isLessThanOrEqualTo(63);
+		assertThat(second).isNotEqualTo(first);
+	}
+
+	@Test
+	public void shortenedNamesDoNotEndWithAHyphen() {
+		TaskIdGenerator generator = new TaskIdGenerator(7, () -> 1000L);
+		StringBuilder name = new StringBuilder("task");
+		while (name.length() < 80) {
+			name.append("-a");
+			String id = generator.generate(name.toString());
+			assertThat(id.length()).isLessThanOrEqualTo(63);
+			assertThat(id).doesNotContain("--");
+		}
+	}
+
+	@Test
+	public void generatorsOnDifferentNodesDoNotCollide() {
+		TaskIdGenerator generator1 = new TaskIdGenerator(1, () -> 1000L);
+		TaskIdGenerator generator2 = new TaskIdGenerator(2, () -> 1000L);
+
+		assertThat(generator1.generate("task")).isNotEqualTo(generator2.generate("task"));
+	}
+
+	@Test
+	public void nodeIdsDerivedFromHostNamesFitTheNameLimit() {
+		TaskIdGenerator generator1 = new TaskIdGenerator(Integer.MAX_VALUE, () -> 1000L);
+		TaskIdGenerator generator2 = new TaskIdGenerator(Integer.MAX_VALUE - 1, () -> 1000L);
+
+		String id = generator1.generate("task");
+
+		assertThat(id).startsWith("task-").matches("[a-z0-9-]+");
+		assertThat(id.length()).isLessThanOrEqualTo(63);
+		assertThat(id).isNotEqualTo(generator2.generate("task"));
+	}
+
+	@Test
+	public void negativeNodeIdsAreRejected() {
+		assertThatThrownBy(() -> new TaskIdGenerator(-1, () -> 1000L))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void idsAreUniqueUnderConcurrency() throws Exception {
+		TaskIdGenerator generator = new TaskIdGenerator();
+		int threads = 8;
+		int idsPerThread = 20000;
+		Set<String> ids = ConcurrentHashMap.newKeySet();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int j = 0; j < idsPerThread; j++) {
+						ids.add(generator.generate("task"));
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(ids).hasSize(threads * idsPerThread);
+	}
+}
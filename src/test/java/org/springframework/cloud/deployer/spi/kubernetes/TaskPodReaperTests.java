@@ -0,0 +1,137 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import io.fabric8.kubernetes.api.model.ContainerStatusBuilder;
+import io.fabric8.kubernetes.api.model.OwnerReferenceBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.batch.Job;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.resource.docker.DockerResource;
+import org.springframework.cloud.deployer.spi.core.AppDefinition;
+import org.springframework.cloud.deployer.spi.core.AppDeploymentRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.deployer.spi.kubernetes.KubernetesTaskLauncherTaskCacheTests.awaitCount;
+import static org.springframework.cloud.deployer.spi.kubernetes.KubernetesTaskLauncherTaskCacheTests.taskPod;
+
+/**
+ * Tests for {@link TaskPodReaper} and the reaper settings of {@link KubernetesTaskLauncher}, run against a mock
+ * API server.
+ */
+public class TaskPodReaperTests {
+
+	@Rule
+	public KubernetesServer server = new KubernetesServer(false, true);
+
+	private KubernetesClient client;
+
+	@Before
+	public void setUp() {
+		this.client = server.getClient();
+	}
+
+	@Test
+	public void sweepDeletesExpiredBareTaskPods() {
+		Instant old = Instant.now().minus(2, ChronoUnit.DAYS);
+		client.pods().create(finishedTaskPod("old-succeeded", "Succeeded", old));
+		client.pods().create(finishedTaskPod("old-failed", "Failed", old));
+		client.pods().create(finishedTaskPod("recent-succeeded", "Succeeded", Instant.now()));
+		client.pods().create(taskPod("running", "Running"));
+		Pod jobPod = finishedTaskPod("job-pod", "Failed", old);
+		jobPod.getMetadata().setOwnerReferences(Collections.singletonList(new OwnerReferenceBuilder()
+				.withKind("Job").withName("job").withUid("uid").withApiVersion("batch/v1").build()));
+		client.pods().create(jobPod);
+
+		TaskPodReaper reaper = new TaskPodReaper(client, TimeUnit.DAYS.toMillis(1), TimeUnit.HOURS.toMillis(1), 1,
+				100);
+
+		assertThat(reaper.sweep()).isEqualTo(2);
+		assertThat(reaper.getReapedCount()).isEqualTo(2);
+		assertThat(client.pods().withName("old-succeeded").get()).isNull();
+		assertThat(client.pods().withName("old-failed").get()).isNull();
+		assertThat(client.pods().withName("recent-succeeded").get()).isNotNull();
+		assertThat(client.pods().withName("running").get()).isNotNull();
+		assertThat(client.pods().withName("job-pod").get()).isNotNull();
+		assertThat(reaper.sweep()).isZero();
+	}
+
+	@Test
+	public void launcherStartsTheReaperOnItsFirstLaunch() throws Exception {
+		client.pods().create(finishedTaskPod("old-succeeded", "Succeeded", Instant.now().minus(1, ChronoUnit.HOURS)));
+		KubernetesTaskLauncherProperties taskLauncherProperties = new KubernetesTaskLauncherProperties();
+		taskLauncherProperties.getReaper().setEnabled(true);
+		taskLauncherProperties.getReaper().setRetention(60);
+		taskLauncherProperties.getReaper().setSweepInterval(1);
+		KubernetesTaskLauncher launcher = new KubernetesTaskLauncher(new KubernetesDeployerProperties(),
+				taskLauncherProperties, client);
+		try {
+			Thread.sleep(1500);
+			assertThat(client.pods().withName("old-succeeded").get()).isNotNull();
+
+			launcher.launch(new AppDeploymentRequest(new AppDefinition("task", Collections.emptyMap()),
+					new DockerResource("springcloud/spring-cloud-deployer-spi-test-app:latest")));
+
+			awaitCount(() -> client.pods().withName("old-succeeded").get() == null ? 1 : 0, 1);
+			assertThat(launcher.getReapedTaskPodCount()).isEqualTo(1);
+		}
+		finally {
+			launcher.destroy();
+		}
+	}
+
+	@Test
+	public void jobsAreCreatedWithTtlSecondsAfterFinished() {
+		KubernetesDeployerProperties deployerProperties = new KubernetesDeployerProperties();
+		deployerProperties.setCreateJob(true);
+		KubernetesTaskLauncherProperties taskLauncherProperties = new KubernetesTaskLauncherProperties();
+		taskLauncherProperties.getReaper().setEnabled(true);
+		taskLauncherProperties.getReaper().setRetention(3600);
+		KubernetesTaskLauncher launcher = new KubernetesTaskLauncher(deployerProperties, taskLauncherProperties,
+				client);
+		try {
+			String id = launcher.launch(new AppDeploymentRequest(new AppDefinition("task", Collections.emptyMap()),
+					new DockerResource("springcloud/spring-cloud-deployer-spi-test-app:latest")));
+
+			Job job = client.batch().jobs().withName(id).get();
+			assertThat(job.getSpec().getTtlSecondsAfterFinished()).isEqualTo(3600);
+		}
+		finally {
+			launcher.destroy();
+		}
+	}
+
+	private static Pod finishedTaskPod(String id, String phase, Instant finishedAt) {
+		Pod pod = taskPod(id, phase);
+		pod.getStatus().setContainerStatuses(Collections.singletonList(
+				new ContainerStatusBuilder().withName(id)
+						.withNewState().withNewTerminated().withFinishedAt(finishedAt.toString()).endTerminated()
+						.endState()
+						.build()));
+		return pod;
+	}
+}
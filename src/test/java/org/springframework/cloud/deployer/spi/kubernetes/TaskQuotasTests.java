@@ -0,0 +1,74 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.deployer.spi.kubernetes;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import org.springframework.cloud.deployer.spi.task.LaunchState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link TaskQuotas}.
+ */
+public class TaskQuotasTests {
+
+	private final List<TaskQuotas.Quota> quotas = Collections.singletonList(
+			new TaskQuotas.Quota("task-name", "etl", 1));
+
+	private final Map<String, LaunchState> states = new ConcurrentHashMap<>();
+
+	private final AtomicBoolean calledWithMonitor = new AtomicBoolean();
+
+	private final AtomicReference<TaskQuotas> taskQuotas = new AtomicReference<>();
+
+	@Test
+	public void finishedTasksArePrunedWithoutHoldingTheMonitor() {
+		this.taskQuotas.set(new TaskQuotas((label, value) -> {
+			recordMonitor();
+			return Collections.singletonMap("running", LaunchState.running);
+		}, id -> {
+			recordMonitor();
+			return this.states.getOrDefault(id, LaunchState.unknown);
+		}));
+		TaskQuotas taskQuotas = this.taskQuotas.get();
+		this.states.put("running", LaunchState.running);
+
+		assertThat(taskQuotas.tryAcquire("etl-1", this.quotas)).isSameAs(this.quotas.get(0));
+		assertThat(taskQuotas.getExhausted(this.quotas)).isSameAs(this.quotas.get(0));
+
+		this.states.put("running", LaunchState.complete);
+		assertThat(taskQuotas.tryAcquire("etl-1", this.quotas)).isNull();
+		assertThat(taskQuotas.getUsage()).containsEntry("task-name=etl", 1);
+		assertThat(taskQuotas.getRejectionCount()).isEqualTo(1);
+		assertThat(this.calledWithMonitor).isFalse();
+	}
+
+	private void recordMonitor() {
+		TaskQuotas taskQuotas = this.taskQuotas.get();
+		if (taskQuotas != null && Thread.holdsLock(taskQuotas)) {
+			this.calledWithMonitor.set(true);
+		}
+	}
+}